@@ -0,0 +1,86 @@
+package com.example.bookingtechtest.config;
+
+import com.example.bookingtechtest.dto.BookingDTO;
+import com.example.bookingtechtest.dto.PropertyDTO;
+import com.example.bookingtechtest.request.CreateBookingRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encoding and decoding of the request and response bodies with the application's
+ * {@link ObjectMapper}, to and from bytes as the HTTP layer does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+    private ObjectWriter bookingDtoWriter;
+    private ObjectReader bookingDtoReader;
+    private ObjectWriter createBookingRequestWriter;
+    private ObjectReader createBookingRequestReader;
+    private BookingDTO bookingDTO;
+    private byte[] bookingDtoJson;
+    private CreateBookingRequest createBookingRequest;
+    private byte[] createBookingRequestJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new BeanConfig().objectMapper();
+        bookingDtoWriter = objectMapper.writerFor(BookingDTO.class);
+        bookingDtoReader = objectMapper.readerFor(BookingDTO.class);
+        createBookingRequestWriter = objectMapper.writerFor(CreateBookingRequest.class);
+        createBookingRequestReader = objectMapper.readerFor(CreateBookingRequest.class);
+
+        UUID propertyId = UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+        bookingDTO = BookingDTO.builder()
+                .id(UUID.randomUUID())
+                .startDate("2024-02-01")
+                .endDate("2024-02-05")
+                .status("Booked")
+                .created_at("2024-01-10T10:15")
+                .last_updated_at("2024-01-11T08:00:30")
+                .guestName("Ethan")
+                .guestLast4Ssn("1234")
+                .property(new PropertyDTO(propertyId, "Aretha Valente"))
+                .build();
+        bookingDtoJson = bookingDtoWriter.writeValueAsBytes(bookingDTO);
+
+        createBookingRequest = new CreateBookingRequest();
+        createBookingRequest.setPropertyId(propertyId);
+        createBookingRequest.setStartDate(LocalDate.parse("2024-02-01"));
+        createBookingRequest.setEndDate(LocalDate.parse("2024-02-05"));
+        createBookingRequest.setGuestName("Ethan");
+        createBookingRequest.setGuestLast4Ssn("1234");
+        createBookingRequestJson = createBookingRequestWriter.writeValueAsBytes(createBookingRequest);
+    }
+
+    @Benchmark
+    public byte[] encodeBookingDto() throws IOException {
+        return bookingDtoWriter.writeValueAsBytes(bookingDTO);
+    }
+
+    @Benchmark
+    public BookingDTO decodeBookingDto() throws IOException {
+        return bookingDtoReader.readValue(bookingDtoJson);
+    }
+
+    @Benchmark
+    public byte[] encodeCreateBookingRequest() throws IOException {
+        return createBookingRequestWriter.writeValueAsBytes(createBookingRequest);
+    }
+
+    @Benchmark
+    public CreateBookingRequest decodeCreateBookingRequest() throws IOException {
+        return createBookingRequestReader.readValue(createBookingRequestJson);
+    }
+}
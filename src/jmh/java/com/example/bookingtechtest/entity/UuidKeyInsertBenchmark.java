@@ -0,0 +1,113 @@
+package com.example.bookingtechtest.entity;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Inserts into a table shaped like TB_BOOKINGS that already holds {@code existingRows} rows,
+ * keyed by random version 4 UUIDs as before or by {@link UuidV7Generator}. The database is a
+ * file under {@code target} so page splits and the cache behave as they would on disk.
+ * The space used is printed after loading and when the run ends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UuidKeyInsertBenchmark {
+    private static final int BATCH_SIZE = 1000;
+    private static final LocalDate FIRST_DAY = LocalDate.parse("2024-01-01");
+
+    @Param({"v4", "v7"})
+    private String keys;
+
+    @Param({"1000000"})
+    private int existingRows;
+
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement insert;
+    private Supplier<UUID> keyGenerator;
+    private final UUID propertyId = UUID.randomUUID();
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        keyGenerator = "v7".equals(keys) ? UuidV7Generator::generate : UUID::randomUUID;
+        directory = Files.createDirectories(Path.of("target", "uuid-benchmark")).resolve(keys);
+        deleteDirectory();
+
+        connection = DriverManager.getConnection("jdbc:h2:" + directory.toAbsolutePath() + "/db", "sa", "");
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE TB_BOOKINGS (id UUID PRIMARY KEY, property_id UUID, "
+                    + "start_date DATE, end_date DATE, status SMALLINT NOT NULL)");
+            statement.execute("CREATE INDEX IDX_BOOKINGS_PROPERTY_DATES ON TB_BOOKINGS (property_id, start_date, end_date, status)");
+        }
+        insert = connection.prepareStatement("INSERT INTO TB_BOOKINGS (id, property_id, start_date, end_date, status) VALUES (?, ?, ?, ?, 1)");
+        for (int i = 0; i < existingRows; i += BATCH_SIZE) {
+            insertBatch();
+        }
+        printSpaceUsed("after loading");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, SQLException {
+        printSpaceUsed("after the run");
+        connection.close();
+        deleteDirectory();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            LocalDate startDate = FIRST_DAY.plusDays(i);
+            insert.setObject(1, keyGenerator.get());
+            insert.setObject(2, propertyId);
+            insert.setDate(3, Date.valueOf(startDate));
+            insert.setDate(4, Date.valueOf(startDate.plusDays(2)));
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    // Live pages of the table and its indexes, and the file, which also holds the pages rewritten since
+    private void printSpaceUsed(String when) throws IOException, SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CHECKPOINT SYNC");
+            try (ResultSet rows = statement.executeQuery("SELECT COUNT(*), DISK_SPACE_USED('TB_BOOKINGS') FROM TB_BOOKINGS")) {
+                rows.next();
+                System.out.printf("%n%s keys %s: %d rows, %d KB of live pages, %d KB file%n",
+                        keys, when, rows.getLong(1), rows.getLong(2) / 1024, Files.size(directory.resolve("db.mv.db")) / 1024);
+            }
+        }
+    }
+
+    private void deleteDirectory() throws IOException {
+        if (Files.exists(directory)) {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
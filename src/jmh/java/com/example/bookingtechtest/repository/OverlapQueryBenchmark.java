@@ -0,0 +1,107 @@
+package com.example.bookingtechtest.repository;
+
+import com.example.bookingtechtest.BookingTechTestApplication;
+import com.example.bookingtechtest.entity.Booking;
+import com.example.bookingtechtest.entity.Property;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The overlap query of {@link BookingRepository} as it grows from 10 to 100k bookings for the
+ * property: the former four-way OR of BETWEENs, the former canonical predicate returning
+ * entities, and the exists query the repository runs today. The probe asks for a free night in the middle of the bookings, so
+ * nothing matches and every variant has to rule out all of its candidates. H2's query result
+ * cache is off, otherwise repeating the same query would not run it at all.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OverlapQueryBenchmark {
+    private static final LocalDate FIRST_DAY = LocalDate.parse("1800-01-01");
+    private static final String BETWEEN_QUERY = "SELECT b FROM Booking b " +
+            "WHERE b.property = :property " +
+            "AND (:startDate BETWEEN b.startDate AND b.endDate " +
+            "OR :endDate BETWEEN b.startDate AND b.endDate " +
+            "OR b.startDate BETWEEN :startDate AND :endDate " +
+            "OR b.endDate BETWEEN :startDate AND :endDate)";
+    private static final String CANONICAL_QUERY = "SELECT b FROM Booking b " +
+            "WHERE b.property = :property " +
+            "AND b.startDate <= :endDate " +
+            "AND b.endDate >= :startDate " +
+            "AND b.status <> com.example.bookingtechtest.enums.BookingStatus.BOOKING_CANCELED";
+
+    @Param({"10", "1000", "10000", "100000"})
+    private int bookings;
+
+    private ConfigurableApplicationContext context;
+    private BookingRepository bookingRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnlyTransaction;
+    private Property property;
+    private LocalDate freeDay;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookingTechTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_ON_EXIT=FALSE;QUERY_CACHE_SIZE=0", "--logging.level.root=WARN");
+        bookingRepository = context.getBean(BookingRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        // The repository methods run in a read-only transaction, the former queries get the same
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        UUID propertyId = UUID.randomUUID();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO TB_PROPERTY (id, owner_name, version) VALUES (?, 'Benchmark', 0)", propertyId);
+        jdbcTemplate.update("INSERT INTO TB_BOOKINGS (id, property_id, start_date, end_date, status, version) "
+                        + "SELECT RANDOM_UUID(), CAST(? AS UUID), DATEADD(DAY, 3 * X, CAST(? AS DATE)), DATEADD(DAY, 3 * X + 1, CAST(? AS DATE)), 1, 0 "
+                        + "FROM SYSTEM_RANGE(0, CAST(? AS INT))",
+                propertyId, FIRST_DAY, FIRST_DAY, bookings - 1);
+        jdbcTemplate.execute("ANALYZE");
+        property = context.getBean(PropertyRepository.class).findById(propertyId).orElseThrow();
+        freeDay = FIRST_DAY.plusDays(3L * (bookings / 2) + 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Booking> betweenQuery() {
+        return formerQuery(BETWEEN_QUERY);
+    }
+
+    @Benchmark
+    public List<Booking> canonicalQuery() {
+        return formerQuery(CANONICAL_QUERY);
+    }
+
+    @Benchmark
+    public boolean existsQuery() {
+        return bookingRepository.existsOverlappingBookingsForProperty(property.getId(), freeDay, freeDay, null);
+    }
+
+    private List<Booking> formerQuery(String query) {
+        return readOnlyTransaction.execute(status -> entityManager.createQuery(query, Booking.class)
+                .setParameter("property", property)
+                .setParameter("startDate", freeDay)
+                .setParameter("endDate", freeDay)
+                .getResultList());
+    }
+}
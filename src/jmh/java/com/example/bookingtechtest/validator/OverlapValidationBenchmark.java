@@ -0,0 +1,76 @@
+package com.example.bookingtechtest.validator;
+
+import com.example.bookingtechtest.BookingTechTestApplication;
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.repository.BookingRepository;
+import com.example.bookingtechtest.repository.PropertyRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overlap check for a new booking against a property that already has {@code bookings}
+ * bookings, on the application's H2 database. Bookings take two nights with one free night
+ * between them, and the probe asks for a free night in the middle, so every check has to
+ * look at its neighbours and answer "available".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OverlapValidationBenchmark {
+    private static final LocalDate FIRST_DAY = LocalDate.parse("2000-01-01");
+
+    @Param({"10", "100", "1000", "10000"})
+    private int bookings;
+
+    private ConfigurableApplicationContext context;
+    private PropertyAvailabilityValidator propertyAvailabilityValidator;
+    private BookingRepository bookingRepository;
+    private Property property;
+    private LocalDate freeDay;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookingTechTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_ON_EXIT=FALSE;QUERY_CACHE_SIZE=0", "--logging.level.root=WARN");
+        propertyAvailabilityValidator = context.getBean(PropertyAvailabilityValidator.class);
+        bookingRepository = context.getBean(BookingRepository.class);
+
+        UUID propertyId = UUID.randomUUID();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO TB_PROPERTY (id, owner_name, version) VALUES (?, 'Benchmark', 0)", propertyId);
+        jdbcTemplate.update("INSERT INTO TB_BOOKINGS (id, property_id, start_date, end_date, status, version) "
+                        + "SELECT RANDOM_UUID(), CAST(? AS UUID), DATEADD(DAY, 3 * X, CAST(? AS DATE)), DATEADD(DAY, 3 * X + 1, CAST(? AS DATE)), 1, 0 "
+                        + "FROM SYSTEM_RANGE(0, CAST(? AS INT))",
+                propertyId, FIRST_DAY, FIRST_DAY, bookings - 1);
+        property = context.getBean(PropertyRepository.class).findById(propertyId).orElseThrow();
+        freeDay = FIRST_DAY.plusDays(3L * (bookings / 2) + 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // What BookingService runs today: the in-memory index
+    @Benchmark
+    public boolean validator() {
+        return propertyAvailabilityValidator.validatePropertyAvailability(freeDay, freeDay, property);
+    }
+
+    // The exists query the validator runs instead with booking.availability.source=database
+    @Benchmark
+    public boolean existsQuery() {
+        return bookingRepository.existsOverlappingBookingsForProperty(property.getId(), freeDay, freeDay, null);
+    }
+}
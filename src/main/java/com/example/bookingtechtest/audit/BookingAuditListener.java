@@ -0,0 +1,180 @@
+package com.example.bookingtechtest.audit;
+
+import com.example.bookingtechtest.entity.Booking;
+import com.example.bookingtechtest.entity.BookingAuditOutbox;
+import com.example.bookingtechtest.entity.BookingStatusConverter;
+import com.example.bookingtechtest.entity.UuidV7Generator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Transaction;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.envers.RevisionType;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Captures booking changes in place of the Envers listeners, which are turned off. The changes of
+ * a transaction are inserted into the outbox just before it commits, in the same transaction, and
+ * handed to the {@link BookingAuditWriter} once it committed. The request only pays for one
+ * batched insert, the revision and audit rows are written later.
+ */
+@Component
+public class BookingAuditListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    private static final String INSERT_OUTBOX = "INSERT INTO tb_bookings_aud_outbox " +
+            "(id, transaction_id, changed_at, revtype, booking_id, start_date, end_date, status, created_at, last_updated_at, guest_name, guest_last4ssn, property_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final BookingStatusConverter STATUS_CONVERTER = new BookingStatusConverter();
+
+    private final BookingAuditWriter bookingAuditWriter;
+    private final Map<Transaction, TransactionChanges> changesByTransaction = new ConcurrentHashMap<>();
+
+    public BookingAuditListener(EntityManagerFactory entityManagerFactory, BookingAuditWriter bookingAuditWriter) {
+        this.bookingAuditWriter = bookingAuditWriter;
+        EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_INSERT, this);
+        listeners.appendListeners(EventType.POST_UPDATE, this);
+        listeners.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Booking booking) {
+            changes(event.getSession()).add(booking, RevisionType.ADD);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Booking booking) {
+            changes(event.getSession()).add(booking, RevisionType.MOD);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Booking booking) {
+            changes(event.getSession()).add(booking, RevisionType.DEL);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private TransactionChanges changes(EventSource session) {
+        return changesByTransaction.computeIfAbsent(session.accessTransaction(), transaction -> {
+            TransactionChanges changes = new TransactionChanges();
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completing -> writeOutbox(completing, changes));
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> {
+                changesByTransaction.remove(transaction);
+                if (success && !changes.isEmpty()) {
+                    bookingAuditWriter.committed(changes.ids());
+                }
+            });
+            return changes;
+        });
+    }
+
+    private static void writeOutbox(SessionImplementor session, TransactionChanges changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        long changedAt = System.currentTimeMillis();
+        session.doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_OUTBOX)) {
+                for (BookingAuditOutbox change : changes.rows()) {
+                    ps.setObject(1, change.getId());
+                    ps.setObject(2, change.getTransactionId());
+                    ps.setLong(3, changedAt);
+                    ps.setByte(4, change.getRevisionType());
+                    ps.setObject(5, change.getBookingId());
+                    ps.setObject(6, change.getStartDate());
+                    ps.setObject(7, change.getEndDate());
+                    ps.setObject(8, change.getStatus());
+                    ps.setObject(9, change.getCreatedAt());
+                    ps.setObject(10, change.getLastUpdatedAt());
+                    ps.setString(11, change.getGuestName());
+                    ps.setString(12, change.getGuestLast4Ssn());
+                    ps.setObject(13, change.getPropertyId());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+
+    /**
+     * Like Envers, several changes of a booking in one transaction make a single audit row.
+     */
+    private static final class TransactionChanges {
+        private final UUID transactionId = UuidV7Generator.generate();
+        private final Map<UUID, BookingAuditOutbox> byBooking = new LinkedHashMap<>();
+
+        void add(Booking booking, RevisionType revisionType) {
+            BookingAuditOutbox previous = byBooking.get(booking.getId());
+            RevisionType merged = previous == null ? revisionType : merge(RevisionType.fromRepresentation(previous.getRevisionType()), revisionType);
+            if (merged == null) {
+                byBooking.remove(booking.getId());
+            } else {
+                byBooking.put(booking.getId(), row(previous == null ? UuidV7Generator.generate() : previous.getId(), booking, merged));
+            }
+        }
+
+        boolean isEmpty() {
+            return byBooking.isEmpty();
+        }
+
+        List<BookingAuditOutbox> rows() {
+            return new ArrayList<>(byBooking.values());
+        }
+
+        List<UUID> ids() {
+            return byBooking.values().stream().map(BookingAuditOutbox::getId).toList();
+        }
+
+        // Created and deleted in the same transaction leaves nothing to audit
+        private static RevisionType merge(RevisionType previous, RevisionType next) {
+            if (previous == RevisionType.ADD) {
+                return next == RevisionType.DEL ? null : RevisionType.ADD;
+            }
+            if (previous == RevisionType.DEL && next == RevisionType.ADD) {
+                return RevisionType.MOD;
+            }
+            return next;
+        }
+
+        // Envers does not keep the data of deleted entities, only their id
+        private BookingAuditOutbox row(UUID id, Booking booking, RevisionType revisionType) {
+            BookingAuditOutbox.BookingAuditOutboxBuilder row = BookingAuditOutbox.builder()
+                    .id(id)
+                    .transactionId(transactionId)
+                    .revisionType(revisionType.getRepresentation())
+                    .bookingId(booking.getId());
+            if (revisionType != RevisionType.DEL) {
+                row.startDate(booking.getStartDate())
+                        .endDate(booking.getEndDate())
+                        .status(STATUS_CONVERTER.convertToDatabaseColumn(booking.getStatus()))
+                        .createdAt(booking.getCreated_at())
+                        .lastUpdatedAt(booking.getLast_updated_at())
+                        .guestName(booking.getGuestName())
+                        .guestLast4Ssn(booking.getGuestLast4Ssn())
+                        .propertyId(booking.getProperty() == null ? null : booking.getProperty().getId());
+            }
+            return row.build();
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.bookingtechtest.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes booking changes from the outbox to the Envers audit tables, in batches and off the
+ * request threads. {@link BookingAuditListener} hands over the ids of committed changes through
+ * a bounded queue. When the queue is full the changes are left in the outbox and picked up from
+ * there, as are those left over by a previous run.
+ * <p>
+ * Each transaction that changed bookings becomes one revision, with the timestamp of its commit,
+ * so the audit history reads the same through Envers as when Envers wrote it in the request.
+ */
+@Slf4j
+@Component
+public class BookingAuditWriter implements SmartLifecycle {
+    private static final String COUNT_OUTBOX = "SELECT COUNT(*) FROM tb_bookings_aud_outbox";
+    private static final String SELECT_OLDEST = "SELECT id FROM tb_bookings_aud_outbox ORDER BY changed_at LIMIT :limit";
+    // Whole transactions are written together, also when the queue handed over only part of them
+    private static final String SELECT_TRANSACTIONS = "SELECT transaction_id, MIN(changed_at) AS changed_at, COUNT(*) AS changes " +
+            "FROM tb_bookings_aud_outbox " +
+            "WHERE transaction_id IN (SELECT transaction_id FROM tb_bookings_aud_outbox WHERE id IN (:ids)) " +
+            "GROUP BY transaction_id ORDER BY changed_at";
+    // REVINFO.REV has no default, Hibernate maps the id of the Envers revision entity to this sequence
+    private static final String NEXT_REVISION = "SELECT NEXT VALUE FOR revinfo_seq";
+    private static final String INSERT_REVISION = "INSERT INTO revinfo (rev, revtstmp) VALUES (?, ?)";
+    private static final String INSERT_AUDIT = "INSERT INTO tb_bookings_aud " +
+            "(rev, id, revtype, start_date, end_date, status, created_at, last_updated_at, guest_name, guest_last4ssn, property_id) " +
+            "SELECT ?, booking_id, revtype, start_date, end_date, status, created_at, last_updated_at, guest_name, guest_last4ssn, property_id " +
+            "FROM tb_bookings_aud_outbox WHERE transaction_id = ?";
+    private static final String DELETE_WRITTEN = "DELETE FROM tb_bookings_aud_outbox WHERE transaction_id IN (:transactionIds)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final BlockingQueue<UUID> pending;
+    private final AtomicLong backlog = new AtomicLong();
+    // Notified whenever the backlog drops to zero
+    private final Object drained = new Object();
+    // Starts set, to write what a previous run left in the outbox
+    private final AtomicBoolean sweepNeeded = new AtomicBoolean(true);
+    private final Timer lag;
+    private final Counter overflows;
+    private volatile boolean running;
+    private Thread worker;
+
+    public BookingAuditWriter(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${booking.audit.queue-capacity:10000}") int queueCapacity,
+                              @Value("${booking.audit.batch-size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("booking.audit.backlog", backlog, AtomicLong::get)
+                .description("Booking changes committed but not written to the audit tables yet")
+                .register(meterRegistry);
+        this.lag = Timer.builder("booking.audit.lag")
+                .description("Time from the commit of a booking change to its audit revision being written")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.overflows = Counter.builder("booking.audit.overflows")
+                .description("Booking changes left in the outbox because the audit queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes the changes of a committed transaction. Never blocks, the outbox already has them.
+     */
+    public void committed(List<UUID> changeIds) {
+        backlog.addAndGet(changeIds.size());
+        for (UUID changeId : changeIds) {
+            if (!pending.offer(changeId)) {
+                overflows.increment();
+                sweepNeeded.set(true);
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        Long leftOver = jdbcTemplate.getJdbcTemplate().queryForObject(COUNT_OUTBOX, Long.class);
+        backlog.addAndGet(leftOver == null ? 0 : leftOver);
+        running = true;
+        worker = Thread.ofPlatform().name("booking-audit-writer").daemon().start(this::run);
+        log.info("Booking audit writer started with {} changes left in the outbox", leftOver);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Booking audit writer stopped with {} changes left in the outbox", backlog.get());
+    }
+
+    /**
+     * Waits until every committed change has been written, or the timeout passes.
+     *
+     * @return whether the backlog reached zero in time
+     */
+    boolean awaitWritten(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (drained) {
+            while (backlog.get() > 0) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(drained, left);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Started before and stopped after the web server, so changes made while serving get written
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void run() {
+        while (running || !pending.isEmpty()) {
+            try {
+                if (sweepNeeded.getAndSet(false)) {
+                    sweep();
+                }
+                UUID first = pending.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    List<UUID> changeIds = new ArrayList<>(batchSize);
+                    changeIds.add(first);
+                    pending.drainTo(changeIds, batchSize - 1);
+                    write(changeIds);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // The changes stay in the outbox, the next sweep writes them
+                log.error("An error occurred while writing booking audit rows, retrying from the outbox", e);
+                sweepNeeded.set(true);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void sweep() {
+        List<UUID> changeIds;
+        do {
+            changeIds = jdbcTemplate.queryForList(SELECT_OLDEST, Map.of("limit", batchSize), UUID.class);
+            if (!changeIds.isEmpty()) {
+                write(changeIds);
+            }
+        } while (changeIds.size() == batchSize);
+    }
+
+    private void write(List<UUID> changeIds) {
+        List<PendingTransaction> written = transactionTemplate.execute(status -> {
+            // Changes a sweep already wrote are gone from the outbox
+            List<PendingTransaction> transactions = jdbcTemplate.query(SELECT_TRANSACTIONS, Map.of("ids", changeIds),
+                    (rs, rowNum) -> new PendingTransaction(rs.getObject("transaction_id", UUID.class),
+                            rs.getLong("changed_at"), rs.getInt("changes")));
+            if (transactions.isEmpty()) {
+                return transactions;
+            }
+
+            List<Integer> revisions = new ArrayList<>(transactions.size());
+            for (int i = 0; i < transactions.size(); i++) {
+                revisions.add(jdbcTemplate.getJdbcTemplate().queryForObject(NEXT_REVISION, Integer.class));
+            }
+            jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_REVISION, batch(transactions.size(), (ps, i) -> {
+                ps.setInt(1, revisions.get(i));
+                ps.setLong(2, transactions.get(i).getChangedAt());
+            }));
+            jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_AUDIT, batch(transactions.size(), (ps, i) -> {
+                ps.setInt(1, revisions.get(i));
+                ps.setObject(2, transactions.get(i).getTransactionId());
+            }));
+            jdbcTemplate.update(DELETE_WRITTEN, Map.of("transactionIds",
+                    transactions.stream().map(PendingTransaction::getTransactionId).toList()));
+            return transactions;
+        });
+
+        long now = System.currentTimeMillis();
+        for (PendingTransaction transaction : written) {
+            backlog.addAndGet(-transaction.getChanges());
+            lag.record(now - transaction.getChangedAt(), TimeUnit.MILLISECONDS);
+        }
+        if (backlog.get() == 0) {
+            synchronized (drained) {
+                drained.notifyAll();
+            }
+        }
+        log.debug("Wrote {} booking audit revisions", written.size());
+    }
+
+    private static BatchPreparedStatementSetter batch(int size, RowSetter rowSetter) {
+        return new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                rowSetter.setValues(ps, i);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return size;
+            }
+        };
+    }
+
+    private interface RowSetter {
+        void setValues(PreparedStatement ps, int i) throws SQLException;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class PendingTransaction {
+        private final UUID transactionId;
+        private final long changedAt;
+        private final int changes;
+    }
+}
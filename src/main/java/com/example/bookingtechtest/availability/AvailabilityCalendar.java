@@ -0,0 +1,46 @@
+package com.example.bookingtechtest.availability;
+
+import com.example.bookingtechtest.enums.DayStatus;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Snapshot of the booked, blocked and held days of a property, taken from the
+ * {@link PropertyAvailabilityIndex}. A blocked day is reported as blocked even when it is
+ * also booked, and a booked day as booked even when it is also held.
+ */
+public class AvailabilityCalendar {
+    @Getter
+    private final LocalDate startDate;
+    @Getter
+    private final int days;
+    private final long[] booked;
+    private final long[] blocked;
+    private final long[] held;
+    @Getter
+    private final String version;
+
+    AvailabilityCalendar(LocalDate startDate, int days, long[] booked, long[] blocked, long[] held, String version) {
+        this.startDate = startDate;
+        this.days = days;
+        this.booked = booked;
+        this.blocked = blocked;
+        this.held = held;
+        this.version = version;
+    }
+
+    public DayStatus status(int day) {
+        if (isSet(blocked, day)) {
+            return DayStatus.BLOCKED;
+        }
+        if (isSet(booked, day)) {
+            return DayStatus.BOOKED;
+        }
+        return isSet(held, day) ? DayStatus.HELD : DayStatus.FREE;
+    }
+
+    private static boolean isSet(long[] bits, int day) {
+        return (bits[day / Long.SIZE] & 1L << day) != 0;
+    }
+}
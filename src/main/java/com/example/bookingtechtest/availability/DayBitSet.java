@@ -0,0 +1,81 @@
+package com.example.bookingtechtest.availability;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One bit per day, keyed by epoch day. Days are stored in fixed pages of 512 days so a
+ * property with a few years of history costs a handful of small arrays.
+ * Not thread safe, callers guard it with the lock of the owning {@link PropertyOccupancy}.
+ */
+class DayBitSet {
+    private static final int PAGE_SHIFT = 9;
+    private static final int WORDS_PER_PAGE = (1 << PAGE_SHIFT) / Long.SIZE;
+
+    private final Map<Long, long[]> pages = new HashMap<>();
+
+    // Both ends are inclusive
+    void set(LocalDate startDate, LocalDate endDate) {
+        for (long day = startDate.toEpochDay(), last = endDate.toEpochDay(); day <= last; day++) {
+            long[] page = pages.computeIfAbsent(day >> PAGE_SHIFT, index -> new long[WORDS_PER_PAGE]);
+            page[wordIndex(day)] |= 1L << day;
+        }
+    }
+
+    // Both ends are inclusive
+    void clear(LocalDate startDate, LocalDate endDate) {
+        for (long day = startDate.toEpochDay(), last = endDate.toEpochDay(); day <= last; day++) {
+            long pageIndex = day >> PAGE_SHIFT;
+            long[] page = pages.get(pageIndex);
+            if (page == null) {
+                continue;
+            }
+            page[wordIndex(day)] &= ~(1L << day);
+            if (isEmpty(page)) {
+                pages.remove(pageIndex);
+            }
+        }
+    }
+
+    boolean get(LocalDate date) {
+        long day = date.toEpochDay();
+        long[] page = pages.get(day >> PAGE_SHIFT);
+        return page != null && (page[wordIndex(day)] & 1L << day) != 0;
+    }
+
+    /**
+     * Copies {@code days} days starting at {@code startDate} into a new array, bit {@code i}
+     * being day {@code startDate + i}.
+     */
+    long[] copy(LocalDate startDate, int days) {
+        long[] bits = new long[(days + Long.SIZE - 1) / Long.SIZE];
+        long firstDay = startDate.toEpochDay();
+        long[] page = null;
+        long pageIndex = Long.MIN_VALUE;
+        for (int offset = 0; offset < days; offset++) {
+            long day = firstDay + offset;
+            if (day >> PAGE_SHIFT != pageIndex) {
+                pageIndex = day >> PAGE_SHIFT;
+                page = pages.get(pageIndex);
+            }
+            if (page != null && (page[wordIndex(day)] & 1L << day) != 0) {
+                bits[offset / Long.SIZE] |= 1L << offset;
+            }
+        }
+        return bits;
+    }
+
+    private static int wordIndex(long day) {
+        return (int) (day & (1 << PAGE_SHIFT) - 1) / Long.SIZE;
+    }
+
+    private static boolean isEmpty(long[] page) {
+        for (long word : page) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.bookingtechtest.availability;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Dates of a property reserved for a guest while the booking is completed elsewhere, until
+ * {@code expiresAt}. Not persisted.
+ */
+@Getter
+@AllArgsConstructor
+public class Hold {
+    private UUID id;
+    private UUID propertyId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String guestName;
+    private String guestLast4Ssn;
+    private Instant expiresAt;
+}
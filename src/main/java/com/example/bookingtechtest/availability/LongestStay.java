@@ -0,0 +1,14 @@
+package com.example.bookingtechtest.availability;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class LongestStay {
+    private UUID propertyId;
+    // Days from the start date to the end date, as OccupiedRanges counts them
+    private Long days;
+}
@@ -0,0 +1,16 @@
+package com.example.bookingtechtest.availability;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class OccupiedRange {
+    private UUID id;
+    private UUID propertyId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+}
@@ -0,0 +1,95 @@
+package com.example.bookingtechtest.availability;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Date ranges of one kind (bookings or blocks) for a single property, ordered by start date,
+ * along with the days they cover as a {@link DayBitSet}.
+ * Both ends of a range are inclusive, matching the overlap rules of the repository queries.
+ * Not thread safe, callers guard it with the lock of the owning {@link PropertyOccupancy}.
+ */
+class OccupiedRanges {
+    private final NavigableMap<LocalDate, Map<UUID, LocalDate>> endDatesByStartDate = new TreeMap<>();
+    private final Map<UUID, LocalDate> startDatesById = new HashMap<>();
+    private final DayBitSet days = new DayBitSet();
+
+    // Only ranges starting at most this many days before a query can reach it.
+    // It never shrinks on removal, which just widens the scan a little.
+    private long longestRangeDays;
+
+    void put(UUID id, LocalDate startDate, LocalDate endDate) {
+        remove(id);
+        endDatesByStartDate.computeIfAbsent(startDate, date -> new HashMap<>(2)).put(id, endDate);
+        startDatesById.put(id, startDate);
+        days.set(startDate, endDate);
+        longestRangeDays = Math.max(longestRangeDays, ChronoUnit.DAYS.between(startDate, endDate));
+    }
+
+    void remove(UUID id) {
+        LocalDate startDate = startDatesById.remove(id);
+        if (startDate == null) {
+            return;
+        }
+        Map<UUID, LocalDate> endDates = endDatesByStartDate.get(startDate);
+        LocalDate endDate = endDates.remove(id);
+        if (endDates.isEmpty()) {
+            endDatesByStartDate.remove(startDate);
+        }
+
+        // Ranges may overlap (older data was not always validated), so repaint what is left
+        days.clear(startDate, endDate);
+        forEachOverlapping(startDate, endDate, days::set);
+    }
+
+    boolean overlaps(LocalDate startDate, LocalDate endDate) {
+        return overlaps(startDate, endDate, null);
+    }
+
+    // The range of excludeId does not count, so a range can be checked against the others when it moves
+    boolean overlaps(LocalDate startDate, LocalDate endDate, UUID excludeId) {
+        LocalDate earliestStart = startDate.minusDays(longestRangeDays);
+        for (Map<UUID, LocalDate> endDates : endDatesByStartDate.subMap(earliestStart, true, endDate, true).values()) {
+            for (Map.Entry<UUID, LocalDate> range : endDates.entrySet()) {
+                if (!range.getValue().isBefore(startDate) && !range.getKey().equals(excludeId)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    DayBitSet days() {
+        return days;
+    }
+
+    long longestRangeDays() {
+        return longestRangeDays;
+    }
+
+    // Accounts for a range that is not kept, so the bound still covers it
+    void widen(long rangeDays) {
+        longestRangeDays = Math.max(longestRangeDays, rangeDays);
+    }
+
+    private void forEachOverlapping(LocalDate startDate, LocalDate endDate, BiConsumer<LocalDate, LocalDate> action) {
+        LocalDate earliestStart = startDate.minusDays(longestRangeDays);
+        endDatesByStartDate.subMap(earliestStart, true, endDate, true).forEach((rangeStartDate, endDates) -> {
+            for (LocalDate rangeEndDate : endDates.values()) {
+                if (!rangeEndDate.isBefore(startDate)) {
+                    action.accept(rangeStartDate, rangeEndDate);
+                }
+            }
+        });
+    }
+
+    int size() {
+        return startDatesById.size();
+    }
+}
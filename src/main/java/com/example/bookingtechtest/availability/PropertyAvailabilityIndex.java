@@ -0,0 +1,240 @@
+package com.example.bookingtechtest.availability;
+
+import com.example.bookingtechtest.entity.Block;
+import com.example.bookingtechtest.entity.Booking;
+import com.example.bookingtechtest.repository.BlockRepository;
+import com.example.bookingtechtest.repository.BookingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.bookingtechtest.util.Transactions.afterCommit;
+
+/**
+ * In-memory view of the date ranges occupied by bookings and blocks, per property.
+ * <p>
+ * Consistency: the index only ever reflects committed rows. Writes are applied after the
+ * surrounding transaction commits, or right away when there is none (a repository
+ * {@code save} has already committed by the time it returns). A rolled back write never
+ * reaches the index. A property that is not in memory yet is loaded from the database on
+ * first use, and applying a write is idempotent, so a load racing with a commit converges.
+ * Between a commit and its index update a concurrent check may still miss the new range,
+ * so callers that need check-then-save atomicity must serialize writes per property.
+ */
+@Slf4j
+@Component
+public class PropertyAvailabilityIndex {
+    private final BookingRepository bookingRepository;
+    private final BlockRepository blockRepository;
+    private final ConcurrentMap<UUID, PropertyOccupancy> occupancies = new ConcurrentHashMap<>();
+    // Tells versions of this process apart from those handed out before a restart
+    private final String instanceId = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    public PropertyAvailabilityIndex(BookingRepository bookingRepository, BlockRepository blockRepository) {
+        this.bookingRepository = bookingRepository;
+        this.blockRepository = blockRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Map<UUID, List<OccupiedRange>> bookingsByProperty = groupByProperty(bookingRepository.findAllOccupiedRanges());
+        Map<UUID, List<OccupiedRange>> blocksByProperty = groupByProperty(blockRepository.findAllOccupiedRanges());
+        Map<UUID, Long> longestCanceledStays = bookingRepository.findLongestCanceledStays().stream()
+                .filter(stay -> stay.getPropertyId() != null && stay.getDays() != null)
+                .collect(Collectors.toMap(LongestStay::getPropertyId, LongestStay::getDays));
+
+        Map<UUID, PropertyOccupancy> warmed = new HashMap<>();
+        bookingsByProperty.keySet().forEach(propertyId -> warmed.put(propertyId, new PropertyOccupancy()));
+        blocksByProperty.keySet().forEach(propertyId -> warmed.put(propertyId, new PropertyOccupancy()));
+        warmed.forEach((propertyId, occupancy) -> {
+            occupancy.load(bookingsByProperty.getOrDefault(propertyId, List.of()),
+                    blocksByProperty.getOrDefault(propertyId, List.of()), longestCanceledStays.get(propertyId));
+            // A property touched while we were reading is loaded on its own, keep that one
+            occupancies.putIfAbsent(propertyId, occupancy);
+        });
+        log.info("Availability index warmed up with {} properties", warmed.size());
+    }
+
+    public boolean hasOverlappingBooking(UUID propertyId, LocalDate startDate, LocalDate endDate) {
+        return hasOverlappingBooking(propertyId, startDate, endDate, null);
+    }
+
+    // Ignores the booking excludeId, when it is the one being moved to these dates
+    public boolean hasOverlappingBooking(UUID propertyId, LocalDate startDate, LocalDate endDate, UUID excludeId) {
+        return read(propertyId, occupancy -> occupancy.bookings().overlaps(startDate, endDate, excludeId));
+    }
+
+    public boolean hasOverlappingBlock(UUID propertyId, LocalDate startDate, LocalDate endDate) {
+        return hasOverlappingBlock(propertyId, startDate, endDate, null);
+    }
+
+    public boolean hasOverlappingBlock(UUID propertyId, LocalDate startDate, LocalDate endDate, UUID excludeId) {
+        return read(propertyId, occupancy -> occupancy.blocks().overlaps(startDate, endDate, excludeId));
+    }
+
+    public boolean hasOverlappingHold(UUID propertyId, LocalDate startDate, LocalDate endDate) {
+        PropertyOccupancy occupancy = occupancies.get(propertyId);
+        if (occupancy == null) {
+            return false;
+        }
+        occupancy.readLock().lock();
+        try {
+            return occupancy.holds().overlaps(startDate, endDate);
+        } finally {
+            occupancy.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the booked, blocked and held days of a property, {@code days} days from {@code startDate},
+     * together with a version that changes whenever the property's ranges or holds change.
+     */
+    public AvailabilityCalendar calendar(UUID propertyId, LocalDate startDate, int days) {
+        return read(propertyId, occupancy -> new AvailabilityCalendar(startDate, days,
+                occupancy.bookings().days().copy(startDate, days),
+                occupancy.blocks().days().copy(startDate, days),
+                occupancy.holds().days().copy(startDate, days),
+                version(occupancy)));
+    }
+
+    /**
+     * The longest stay, in days from start to end date, of any booking of the property, canceled ones
+     * included. A booking that starts more than this many days before a date cannot reach it.
+     */
+    public long longestStayDays(UUID propertyId) {
+        return read(propertyId, occupancy -> occupancy.bookings().longestRangeDays());
+    }
+
+    /**
+     * The version {@link #calendar} would return, without copying any day, or {@code null} when the
+     * property is not in memory. Such a property has not handed out a version since the start, so
+     * there is nothing to compare with, and it is not loaded just to say so.
+     */
+    public String calendarVersion(UUID propertyId) {
+        PropertyOccupancy occupancy = occupancies.get(propertyId);
+        if (occupancy == null || !occupancy.isLoaded()) {
+            return null;
+        }
+        occupancy.readLock().lock();
+        try {
+            return version(occupancy);
+        } finally {
+            occupancy.readLock().unlock();
+        }
+    }
+
+    public void bookingSaved(Booking booking) {
+        UUID propertyId = booking.getProperty().getId();
+        UUID id = booking.getId();
+        if (booking.getStatus() != null && !booking.getStatus().isActive()) {
+            // A canceled booking frees its dates until it is rebooked
+            afterCommit(() -> write(propertyId, occupancy -> occupancy.bookings().remove(id)));
+            return;
+        }
+        LocalDate startDate = booking.getStartDate();
+        LocalDate endDate = booking.getEndDate();
+        afterCommit(() -> write(propertyId, occupancy -> occupancy.bookings().put(id, startDate, endDate)));
+    }
+
+    public void bookingDeleted(Booking booking) {
+        UUID propertyId = booking.getProperty().getId();
+        UUID id = booking.getId();
+        afterCommit(() -> write(propertyId, occupancy -> occupancy.bookings().remove(id)));
+    }
+
+    public void blockSaved(Block block) {
+        UUID propertyId = block.getProperty().getId();
+        UUID id = block.getId();
+        LocalDate startDate = block.getStartDate();
+        LocalDate endDate = block.getEndDate();
+        afterCommit(() -> write(propertyId, occupancy -> occupancy.blocks().put(id, startDate, endDate)));
+    }
+
+    public void blockDeleted(Block block) {
+        UUID propertyId = block.getProperty().getId();
+        UUID id = block.getId();
+        afterCommit(() -> write(propertyId, occupancy -> occupancy.blocks().remove(id)));
+    }
+
+    // Holds are not persisted, they apply right away and never load the property from the database
+    public void holdPlaced(Hold hold) {
+        writeHolds(hold.getPropertyId(), holds -> holds.put(hold.getId(), hold.getStartDate(), hold.getEndDate()));
+    }
+
+    public void holdReleased(Hold hold) {
+        writeHolds(hold.getPropertyId(), holds -> holds.remove(hold.getId()));
+    }
+
+    private <T> T read(UUID propertyId, Function<PropertyOccupancy, T> reader) {
+        PropertyOccupancy occupancy = loadedOccupancy(propertyId);
+        occupancy.readLock().lock();
+        try {
+            return reader.apply(occupancy);
+        } finally {
+            occupancy.readLock().unlock();
+        }
+    }
+
+    private void write(UUID propertyId, Consumer<PropertyOccupancy> writer) {
+        PropertyOccupancy occupancy = loadedOccupancy(propertyId);
+        occupancy.writeLock().lock();
+        try {
+            writer.accept(occupancy);
+            occupancy.modified();
+        } finally {
+            occupancy.writeLock().unlock();
+        }
+    }
+
+    private void writeHolds(UUID propertyId, Consumer<OccupiedRanges> writer) {
+        PropertyOccupancy occupancy = occupancies.computeIfAbsent(propertyId, id -> new PropertyOccupancy());
+        occupancy.writeLock().lock();
+        try {
+            writer.accept(occupancy.holds());
+            // Holds show in the calendar, whose version must change with them
+            occupancy.modified();
+        } finally {
+            occupancy.writeLock().unlock();
+        }
+    }
+
+    private String version(PropertyOccupancy occupancy) {
+        return instanceId + "-" + occupancy.modifications();
+    }
+
+    private PropertyOccupancy loadedOccupancy(UUID propertyId) {
+        // No database access inside computeIfAbsent, the load happens under the property's own lock
+        PropertyOccupancy occupancy = occupancies.computeIfAbsent(propertyId, id -> new PropertyOccupancy());
+        if (!occupancy.isLoaded()) {
+            occupancy.writeLock().lock();
+            try {
+                if (!occupancy.isLoaded()) {
+                    occupancy.load(bookingRepository.findOccupiedRangesByPropertyId(propertyId),
+                            blockRepository.findOccupiedRangesByPropertyId(propertyId),
+                            bookingRepository.findLongestCanceledStayDays(propertyId));
+                }
+            } finally {
+                occupancy.writeLock().unlock();
+            }
+        }
+        return occupancy;
+    }
+
+    private static Map<UUID, List<OccupiedRange>> groupByProperty(List<OccupiedRange> ranges) {
+        return ranges.stream()
+                .filter(range -> range.getPropertyId() != null)
+                .collect(Collectors.groupingBy(OccupiedRange::getPropertyId));
+    }
+}
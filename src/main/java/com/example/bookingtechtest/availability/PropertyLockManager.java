@@ -0,0 +1,71 @@
+package com.example.bookingtechtest.availability;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes writes that touch the availability of the same property, so the availability
+ * check and the save that follows it are atomic. Locks are striped: a fixed table of locks
+ * is shared by all properties, so unrelated properties only wait on each other when they
+ * hash to the same stripe. This only covers a single application instance.
+ */
+@Component
+public class PropertyLockManager {
+    private final ReentrantLock[] stripes;
+
+    public PropertyLockManager(@Value("${booking.property-locks.stripes:1024}") int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withLock(UUID propertyId, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripeFor(propertyId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void withLock(UUID propertyId, Runnable action) {
+        withLock(propertyId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the action holding the locks of every given property. The stripes are taken in index
+     * order, so two callers locking overlapping sets never wait on each other in a cycle.
+     */
+    public void withLocks(Collection<UUID> propertyIds, Runnable action) {
+        int[] indexes = propertyIds.stream().mapToInt(this::stripeFor).distinct().sorted().toArray();
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                locked++;
+            }
+            action.run();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    int stripeFor(UUID propertyId) {
+        int hash = Objects.hashCode(propertyId);
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+}
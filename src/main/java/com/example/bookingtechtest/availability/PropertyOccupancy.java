@@ -0,0 +1,69 @@
+package com.example.bookingtechtest.availability;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Occupied ranges of a single property. Created empty and filled from the database the first
+ * time it is used, unless the startup warm-up already filled it. Holds only live in memory,
+ * they are never loaded.
+ */
+class PropertyOccupancy {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final OccupiedRanges bookings = new OccupiedRanges();
+    private final OccupiedRanges blocks = new OccupiedRanges();
+    private final OccupiedRanges holds = new OccupiedRanges();
+    private volatile boolean loaded;
+    // Bumped on every write, under the write lock
+    private long modifications;
+
+    ReentrantReadWriteLock.ReadLock readLock() {
+        return lock.readLock();
+    }
+
+    ReentrantReadWriteLock.WriteLock writeLock() {
+        return lock.writeLock();
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    // Callers hold the write lock, or own the instance before it is published
+    void load(List<OccupiedRange> bookingRanges, List<OccupiedRange> blockRanges, Long longestCanceledStayDays) {
+        putAll(bookings, bookingRanges);
+        putAll(blocks, blockRanges);
+        if (longestCanceledStayDays != null) {
+            bookings.widen(longestCanceledStayDays);
+        }
+        loaded = true;
+    }
+
+    void modified() {
+        modifications++;
+    }
+
+    long modifications() {
+        return modifications;
+    }
+
+    OccupiedRanges bookings() {
+        return bookings;
+    }
+
+    OccupiedRanges blocks() {
+        return blocks;
+    }
+
+    OccupiedRanges holds() {
+        return holds;
+    }
+
+    private static void putAll(OccupiedRanges ranges, List<OccupiedRange> occupiedRanges) {
+        for (OccupiedRange range : occupiedRanges) {
+            if (range.getStartDate() != null && range.getEndDate() != null) {
+                ranges.put(range.getId(), range.getStartDate(), range.getEndDate());
+            }
+        }
+    }
+}
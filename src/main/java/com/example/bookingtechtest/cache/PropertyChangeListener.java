@@ -0,0 +1,50 @@
+package com.example.bookingtechtest.cache;
+
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.service.BookingResponseCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops the cached responses of a property's bookings when the property changes, they show its
+ * details. Registered with Hibernate like the audit listener, so the entity does not know about it.
+ */
+@Component
+public class PropertyChangeListener implements PostUpdateEventListener, PostDeleteEventListener {
+    private final BookingResponseCache bookingResponseCache;
+
+    public PropertyChangeListener(EntityManagerFactory entityManagerFactory, BookingResponseCache bookingResponseCache) {
+        this.bookingResponseCache = bookingResponseCache;
+        EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_UPDATE, this);
+        listeners.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Property property) {
+            bookingResponseCache.invalidateProperty(property.getId());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Property property) {
+            bookingResponseCache.invalidateProperty(property.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.bookingtechtest.config;
+
+import com.example.bookingtechtest.entity.Property;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Second-level cache of Hibernate, backed by Caffeine through JCache. Only the {@link Property}
+ * region is cached, and its size is bounded here instead of in a provider config file.
+ */
+@Configuration
+public class PropertyCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${booking.property-cache.max-size:10000}") long maxSize) {
+        CachingProvider provider = Caching.getCachingProvider(
+                "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider");
+        // A manager of its own, closing it with the context does not close the cache of another context
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("booking-api-" + UUID.randomUUID()), provider.getDefaultClassLoader());
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        // Hibernate already keeps a disassembled copy of the entity in the cache
+        configuration.setStoreByValue(false);
+        cacheManager.createCache(Property.CACHE_REGION, configuration);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
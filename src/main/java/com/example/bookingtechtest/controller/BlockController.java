@@ -2,26 +2,40 @@ package com.example.bookingtechtest.controller;
 
 import com.example.bookingtechtest.dto.BlockDTO;
 import com.example.bookingtechtest.entity.Block;
+import com.example.bookingtechtest.enums.ExportFormat;
+import com.example.bookingtechtest.response.BlockImportResult;
+import com.example.bookingtechtest.service.BlockImportService;
 import com.example.bookingtechtest.service.BlockService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.UUID;
 
 @Tag(name = "Blocks", description = "The blocks API")
 @RestController
 @RequestMapping("/api/blocks")
 public class BlockController {
+    public static final String BLOCKS_IMPORTED = "X-Blocks-Imported";
+    public static final String BLOCKS_REJECTED = "X-Blocks-Rejected";
+
     private final BlockService blockService;
+    private final BlockImportService blockImportService;
 
-    public BlockController(BlockService blockService) {
+    public BlockController(BlockService blockService, BlockImportService blockImportService) {
         this.blockService = blockService;
+        this.blockImportService = blockImportService;
     }
 
     @Operation(
@@ -30,11 +44,13 @@ public class BlockController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "successful operation"),
             @ApiResponse(responseCode = "400", description = "bad request"),
-            @ApiResponse(responseCode = "404", description = "resource not found request")
+            @ApiResponse(responseCode = "404", description = "resource not found request"),
+            @ApiResponse(responseCode = "422", description = "the Idempotency-Key was already used for a different request")
     })
     @PostMapping("/create-block")
-    public ResponseEntity<BlockDTO> createBlock(@Valid @RequestBody Block block) {
-        BlockDTO createdBlock = blockService.createBlock(block);
+    public ResponseEntity<BlockDTO> createBlock(@Valid @RequestBody Block block,
+                                                @RequestHeader(value = BookingController.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        BlockDTO createdBlock = blockService.createBlock(block, idempotencyKey);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdBlock);
     }
 
@@ -65,6 +81,28 @@ public class BlockController {
         blockService.deleteBlock(id);
         return ResponseEntity.noContent().build();
     }
-}
-
 
+    @Operation(
+            summary = "Imports blocks from a CSV file",
+            description = "reads a CSV file with propertyId, startDate and endDate columns and creates a block for every available row. " +
+                    "The response counts the imported and rejected rows in headers and its body lists the rejected rows with their error")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "bad request")
+    })
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public void importBlocks(InputStream csv, HttpServletResponse response) throws IOException {
+        BlockImportResult result = blockImportService.importBlocks(csv);
+        // Sent from the request thread, so the error file is removed however the response ends
+        try {
+            response.setContentType(ExportFormat.CSV.getContentType());
+            response.setHeader(BLOCKS_IMPORTED, Long.toString(result.getImported()));
+            response.setHeader(BLOCKS_REJECTED, Long.toString(result.getRejected()));
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename("block-import-errors.csv").build().toString());
+            Files.copy(result.getErrorFile(), response.getOutputStream());
+        } finally {
+            Files.deleteIfExists(result.getErrorFile());
+        }
+    }
+}
@@ -2,26 +2,39 @@ package com.example.bookingtechtest.controller;
 
 import com.example.bookingtechtest.dto.BookingDTO;
 import com.example.bookingtechtest.entity.Booking;
+import com.example.bookingtechtest.request.BulkCreateBookingRequest;
 import com.example.bookingtechtest.request.CreateBookingRequest;
 import com.example.bookingtechtest.request.UpdateBookingRequest;
+import com.example.bookingtechtest.response.BulkCreateBookingResponse;
 import com.example.bookingtechtest.response.CreateBookingResponse;
+import com.example.bookingtechtest.response.SerializedBooking;
+import com.example.bookingtechtest.response.UpdatedBooking;
 import com.example.bookingtechtest.service.BookingService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Tag(name = "Bookings", description = "The bookings API")
 @RestController
 @RequestMapping("/api/bookings")
 public class BookingController {
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final BookingService bookingService;
 
     public BookingController(BookingService bookingService) {
@@ -34,26 +47,46 @@ public class BookingController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "successful operation"),
             @ApiResponse(responseCode = "400", description = "bad request"),
-            @ApiResponse(responseCode = "404", description = "resource not found request")
+            @ApiResponse(responseCode = "404", description = "resource not found request"),
+            @ApiResponse(responseCode = "422", description = "the Idempotency-Key was already used for a different request")
     })
     @PostMapping("/create-booking")
-    public ResponseEntity<CreateBookingResponse> createBooking(@Valid @RequestBody CreateBookingRequest booking) {
-        CreateBookingResponse createdBooking = bookingService.createBooking(booking);
+    public ResponseEntity<CreateBookingResponse> createBooking(@Valid @RequestBody CreateBookingRequest booking,
+                                                               @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        CreateBookingResponse createdBooking = bookingService.createBooking(booking, idempotencyKey);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdBooking);
     }
 
+    @Operation(
+            summary = "Creates bookings in bulk",
+            description = "validates the availability of every booking, including conflicts between them, and creates the ones that are available")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation, see each result"),
+            @ApiResponse(responseCode = "400", description = "bad request")
+    })
+    @PostMapping("/create-bookings")
+    public ResponseEntity<BulkCreateBookingResponse> createBookings(@Valid @RequestBody BulkCreateBookingRequest bookings) {
+        BulkCreateBookingResponse createdBookings = bookingService.createBookings(bookings);
+        return ResponseEntity.ok(createdBookings);
+    }
+
     @Operation(
             summary = "Updates a booking",
             description = "validates the availability of a property and updates a booking")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "successful operation"),
             @ApiResponse(responseCode = "400", description = "bad request"),
-            @ApiResponse(responseCode = "404", description = "resource not found request")
+            @ApiResponse(responseCode = "404", description = "resource not found request"),
+            @ApiResponse(responseCode = "412", description = "the booking no longer matches the If-Match header")
     })
     @PutMapping("/update-booking/{id}")
-    public ResponseEntity<BookingDTO> updateBooking(@PathVariable UUID id, @Valid @RequestBody UpdateBookingRequest booking) {
-        BookingDTO updatedBooking = bookingService.updateBooking(id, booking);
-        return ResponseEntity.ok(updatedBooking);
+    public ResponseEntity<BookingDTO> updateBooking(@PathVariable UUID id, @Valid @RequestBody UpdateBookingRequest booking,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        UpdatedBooking updatedBooking = bookingService.updateBooking(id, booking, expectedVersions(ifMatch));
+        // The same ETag a GET would now return, for the client's next If-Match
+        return ResponseEntity.ok()
+                .eTag(updatedBooking.getETag())
+                .body(updatedBooking.getBooking());
     }
 
     @Operation(
@@ -100,14 +133,40 @@ public class BookingController {
             summary = "Queries a booking",
             description = "queries an existing booking")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "200", description = "successful operation",
+                    content = @Content(schema = @Schema(implementation = BookingDTO.class))),
+            @ApiResponse(responseCode = "304", description = "the booking did not change"),
             @ApiResponse(responseCode = "400", description = "bad request"),
             @ApiResponse(responseCode = "404", description = "resource not found request")
     })
-    @GetMapping("/{id}")
-    public ResponseEntity<BookingDTO> getBooking(@PathVariable UUID id) {
-        BookingDTO booking = bookingService.getBookingById(id);
-        return ResponseEntity.ok(booking);
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getBooking(@PathVariable UUID id, WebRequest webRequest) {
+        // Already serialized, cached responses are written as they are
+        SerializedBooking booking = bookingService.getSerializedBookingById(id);
+        if (webRequest.checkNotModified(booking.getETag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(booking.getETag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(booking.getJson());
+    }
+
+    // The versions an If-Match header asks for, null when any version will do
+    private static List<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        for (String eTag : ifMatch.split(",")) {
+            String tag = eTag.trim();
+            // If-Match compares strongly, a weak or foreign tag matches no version. The property
+            // version after the dash does not matter to a booking update
+            if (tag.matches("\"\\d{1,18}(-\\d{1,18})?\"")) {
+                versions.add(Long.valueOf(tag.substring(1, tag.length() - 1).split("-")[0]));
+            }
+        }
+        return versions;
     }
 }
 
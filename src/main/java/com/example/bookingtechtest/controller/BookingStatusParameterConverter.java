@@ -0,0 +1,19 @@
+package com.example.bookingtechtest.controller;
+
+import com.example.bookingtechtest.enums.BookingStatus;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Binds a {@link BookingStatus} request parameter from the display name the responses show,
+ * such as {@code canceled}, so a client can filter by the status it read from a booking.
+ */
+@Component
+public class BookingStatusParameterConverter implements Converter<String, BookingStatus> {
+
+    @Override
+    public BookingStatus convert(String name) {
+        // An empty parameter means no status, as with the default enum binding
+        return name.isBlank() ? null : BookingStatus.fromName(name.trim());
+    }
+}
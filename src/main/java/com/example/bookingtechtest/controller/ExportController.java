@@ -0,0 +1,73 @@
+package com.example.bookingtechtest.controller;
+
+import com.example.bookingtechtest.enums.ExportFormat;
+import com.example.bookingtechtest.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.TimeUnit;
+
+@Tag(name = "Exports", description = "Every booking or block, streamed as NDJSON or CSV")
+@RestController
+@RequestMapping("/api/exports")
+public class ExportController {
+    private final ExportService exportService;
+    private final long timeoutMillis;
+
+    public ExportController(ExportService exportService,
+                            @Value("${booking.export.timeout-seconds:3600}") long timeoutSeconds) {
+        this.exportService = exportService;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+    }
+
+    @Operation(
+            summary = "Exports every booking",
+            description = "streams every booking as NDJSON, one object per line, or as CSV with a header line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "bad request")
+    })
+    @GetMapping("/bookings")
+    public WebAsyncTask<Void> exportBookings(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response) {
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+        return streaming("bookings", exportFormat, response, out -> exportService.exportBookings(exportFormat, out));
+    }
+
+    @Operation(
+            summary = "Exports every block",
+            description = "streams every block as NDJSON, one object per line, or as CSV with a header line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "bad request")
+    })
+    @GetMapping("/blocks")
+    public WebAsyncTask<Void> exportBlocks(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response) {
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+        return streaming("blocks", exportFormat, response, out -> exportService.exportBlocks(exportFormat, out));
+    }
+
+    // A whole table can take far longer than the async timeout of the other endpoints, so only
+    // exports get their own. The rows are written straight to the response off the request thread.
+    private WebAsyncTask<Void> streaming(String name, ExportFormat format, HttpServletResponse response, StreamingResponseBody body) {
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(name + "." + format.getExtension()).build().toString());
+        return new WebAsyncTask<>(timeoutMillis, () -> {
+            body.writeTo(response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+}
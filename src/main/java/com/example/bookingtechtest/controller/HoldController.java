@@ -0,0 +1,81 @@
+package com.example.bookingtechtest.controller;
+
+import com.example.bookingtechtest.request.CreateBookingRequest;
+import com.example.bookingtechtest.response.CreateBookingResponse;
+import com.example.bookingtechtest.response.HoldResponse;
+import com.example.bookingtechtest.service.HoldService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@Tag(name = "Holds", description = "Dates held for a guest while the booking is completed")
+@RestController
+@RequestMapping("/api/holds")
+public class HoldController {
+    private final HoldService holdService;
+
+    public HoldController(HoldService holdService) {
+        this.holdService = holdService;
+    }
+
+    @Operation(
+            summary = "Holds dates of a property",
+            description = "validates the availability of a property and holds the dates for a limited time, without creating a booking")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "bad request"),
+            @ApiResponse(responseCode = "404", description = "resource not found request"),
+            @ApiResponse(responseCode = "429", description = "too many dates are held, try again once some are confirmed, released or expired")
+    })
+    @PostMapping("/create-hold")
+    public ResponseEntity<HoldResponse> createHold(@Valid @RequestBody CreateBookingRequest hold) {
+        HoldResponse createdHold = holdService.createHold(hold);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdHold);
+    }
+
+    @Operation(
+            summary = "Gets a hold",
+            description = "returns a hold that has not expired yet")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "404", description = "resource not found request")
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<HoldResponse> getHold(@PathVariable UUID id) {
+        return ResponseEntity.ok(holdService.getHold(id));
+    }
+
+    @Operation(
+            summary = "Confirms a hold",
+            description = "creates the booking of a hold that has not expired yet")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "bad request"),
+            @ApiResponse(responseCode = "404", description = "resource not found request")
+    })
+    @PostMapping("/confirm-hold/{id}")
+    public ResponseEntity<CreateBookingResponse> confirmHold(@PathVariable UUID id) {
+        CreateBookingResponse createdBooking = holdService.confirmHold(id);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdBooking);
+    }
+
+    @Operation(
+            summary = "Releases a hold",
+            description = "makes the dates of a hold available again")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "successful operation"),
+            @ApiResponse(responseCode = "404", description = "resource not found request")
+    })
+    @DeleteMapping("/release-hold/{id}")
+    public ResponseEntity<Void> releaseHold(@PathVariable UUID id) {
+        holdService.releaseHold(id);
+        return ResponseEntity.noContent().build();
+    }
+}
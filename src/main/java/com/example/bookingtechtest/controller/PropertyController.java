@@ -0,0 +1,110 @@
+package com.example.bookingtechtest.controller;
+
+import com.example.bookingtechtest.enums.BookingStatus;
+import com.example.bookingtechtest.response.AvailablePropertiesResponse;
+import com.example.bookingtechtest.response.PropertyBookingsResponse;
+import com.example.bookingtechtest.response.PropertyCalendarResponse;
+import com.example.bookingtechtest.service.PropertyService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Tag(name = "Properties", description = "The properties API")
+@RestController
+@RequestMapping("/api/properties")
+public class PropertyController {
+    private final PropertyService propertyService;
+    private final CacheControl calendarCacheControl;
+
+    public PropertyController(PropertyService propertyService,
+                              @Value("${booking.calendar.max-age-seconds:30}") long calendarMaxAgeSeconds) {
+        this.propertyService = propertyService;
+        this.calendarCacheControl = CacheControl.maxAge(Duration.ofSeconds(calendarMaxAgeSeconds)).cachePrivate();
+    }
+
+    @Operation(
+            summary = "Searches available properties",
+            description = "lists the properties, optionally among the given ids, with no booking or block between the dates")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "bad request")
+    })
+    @GetMapping("/available")
+    public ResponseEntity<AvailablePropertiesResponse> findAvailableProperties(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) List<UUID> propertyIds,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        AvailablePropertiesResponse availableProperties = propertyService.findAvailableProperties(startDate, endDate, propertyIds, page, size);
+        return ResponseEntity.ok(availableProperties);
+    }
+
+    @Operation(
+            summary = "Gets the calendar of a property",
+            description = "returns whether each day is free, booked or blocked, by default for the 12 months starting this month")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "304", description = "the calendar did not change"),
+            @ApiResponse(responseCode = "400", description = "bad request"),
+            @ApiResponse(responseCode = "404", description = "property not found")
+    })
+    @GetMapping("/{propertyId}/calendar")
+    public ResponseEntity<PropertyCalendarResponse> getCalendar(
+            @PathVariable UUID propertyId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(defaultValue = "12") int months,
+            WebRequest webRequest) {
+        LocalDate calendarStart = startDate != null ? startDate : LocalDate.now().withDayOfMonth(1);
+        // Revalidation only needs the version, the days are built when the calendar changed
+        String version = propertyService.getCalendarVersion(propertyId, months);
+        if (version != null && webRequest.checkNotModified(calendarETag(version, calendarStart, months))) {
+            return null;
+        }
+        PropertyCalendarResponse calendar = propertyService.getCalendar(propertyId, calendarStart, months);
+        // After a miss the response keeps the tag checked above. A write in between makes the body newer
+        // than that tag, which versions only ever move past, so it costs the next revalidation a 200 at most
+        return ResponseEntity.ok()
+                .cacheControl(calendarCacheControl)
+                .eTag(calendarETag(calendar.getVersion(), calendarStart, months))
+                .body(calendar);
+    }
+
+    // The window is part of the tag: without a startDate the same URL moves to the next month
+    private static String calendarETag(String version, LocalDate startDate, int months) {
+        return version + "-" + startDate + "-" + months;
+    }
+
+    @Operation(
+            summary = "Lists the bookings of a property",
+            description = "lists the bookings of a property by start date, optionally with a status such as Canceled or overlapping the dates. " +
+                    "Pass the nextCursor of a page as the cursor to get the next one")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "bad request"),
+            @ApiResponse(responseCode = "404", description = "property not found")
+    })
+    @GetMapping("/{propertyId}/bookings")
+    public ResponseEntity<PropertyBookingsResponse> findBookings(
+            @PathVariable UUID propertyId,
+            @RequestParam(required = false) BookingStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        PropertyBookingsResponse bookings = propertyService.findBookings(propertyId, status, startDate, endDate, cursor, size);
+        return ResponseEntity.ok(bookings);
+    }
+}
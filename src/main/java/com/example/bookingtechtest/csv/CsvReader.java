@@ -0,0 +1,111 @@
+package com.example.bookingtechtest.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a UTF-8 CSV stream line by line, ending lines at CRLF, LF or CR. A line keeps at most
+ * {@code maxLineLength} characters, the rest of a longer one is skipped without being held in
+ * memory and {@link #isTruncated()} tells the caller, so one huge line cannot exhaust the heap.
+ */
+public final class CsvReader implements AutoCloseable {
+    private final Reader reader;
+    private final int maxLineLength;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder line = new StringBuilder();
+    private int position;
+    private int limit;
+    private boolean truncated;
+
+    public CsvReader(InputStream in, int maxLineLength) {
+        this.reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Returns the next line without its line break, cut to {@code maxLineLength} characters, or
+     * null at the end of the stream.
+     */
+    public String readLine() throws IOException {
+        line.setLength(0);
+        truncated = false;
+        if (!fill()) {
+            return null;
+        }
+        while (fill()) {
+            char c = buffer[position++];
+            if (c == '\n') {
+                break;
+            }
+            if (c == '\r') {
+                if (fill() && buffer[position] == '\n') {
+                    position++;
+                }
+                break;
+            }
+            if (line.length() < maxLineLength) {
+                line.append(c);
+            } else {
+                truncated = true;
+            }
+        }
+        return line.toString();
+    }
+
+    // Whether the last line read was longer than maxLineLength
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // RFC 4180 fields, quoted ones may contain commas and doubled quotes
+    public static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Whether a character is left to read, refilling the buffer when it is used up
+    private boolean fill() throws IOException {
+        while (position == limit) {
+            int read = reader.read(buffer, 0, buffer.length);
+            if (read < 0) {
+                return false;
+            }
+            position = 0;
+            limit = read;
+        }
+        return true;
+    }
+}
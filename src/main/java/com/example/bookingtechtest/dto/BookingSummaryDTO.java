@@ -0,0 +1,31 @@
+package com.example.bookingtechtest.dto;
+
+import com.example.bookingtechtest.enums.BookingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingSummaryDTO {
+
+    private UUID id;
+    private UUID propertyId;
+    private String startDate;
+    private String endDate;
+    private String status;
+    private String guestName;
+    private String guestLast4Ssn;
+
+    // Projected by the listing query, without loading the booking or its property
+    public BookingSummaryDTO(UUID id, UUID propertyId, LocalDate startDate, LocalDate endDate, BookingStatus status,
+                             String guestName, String guestLast4Ssn) {
+        this(id, propertyId, startDate.toString(), endDate.toString(), status.getName(), guestName, guestLast4Ssn);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.bookingtechtest.dto;
+
+import com.example.bookingtechtest.enums.DayStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarDayDTO {
+    private String date;
+    private DayStatus status;
+}
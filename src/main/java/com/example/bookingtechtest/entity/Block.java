@@ -14,10 +14,10 @@ import java.util.UUID;
 @AllArgsConstructor
 @NoArgsConstructor
 @ToString
-@Table(name = "TB_BLOCK")
+@Table(name = "TB_BLOCK", indexes = @Index(name = "IDX_BLOCK_PROPERTY_DATES", columnList = "property_id, start_date, end_date"))
 public class Block {
     @Id
-    @GeneratedValue(generator = "UUID")
+    @UuidV7
     @Column(name = "ID", updatable = false, nullable = false, length = 16)
     private UUID id;
 
@@ -29,7 +29,12 @@ public class Block {
 
     private LocalDateTime last_updated_at;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @Version
+    private Long version;
+
+    // Block writes only ever use the property's id, which the lazy reference holds without a query
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "property_id")
     private Property property;
 }
@@ -1,5 +1,6 @@
 package com.example.bookingtechtest.entity;
 
+import com.example.bookingtechtest.enums.BookingStatus;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.persistence.*;
 import lombok.*;
@@ -19,11 +20,15 @@ import static org.hibernate.envers.RelationTargetAuditMode.NOT_AUDITED;
 @AllArgsConstructor
 @NoArgsConstructor
 @ToString
+// Envers maps the audit tables, BookingAuditListener and BookingAuditWriter fill them
 @Audited
-@Table(name = "TB_BOOKINGS")
+@Table(name = "TB_BOOKINGS", indexes = {
+        @Index(name = "IDX_BOOKINGS_PROPERTY_DATES", columnList = "property_id, start_date, end_date, status"),
+        @Index(name = "IDX_BOOKINGS_PROPERTY_START", columnList = "property_id, start_date, id")
+})
 public class Booking {
     @Id
-    @GeneratedValue(generator = "UUID")
+    @UuidV7
     @Column(name = "ID", updatable = false, nullable = false, length = 16)
     private UUID id;
 
@@ -31,18 +36,25 @@ public class Booking {
 
     private LocalDate endDate;
 
-    private String status;
+    @Convert(converter = BookingStatusConverter.class)
+    @Column(columnDefinition = "smallint", nullable = false)
+    private BookingStatus status;
 
     private LocalDateTime created_at ;
 
     private LocalDateTime last_updated_at;
 
+    @Version
+    private Long version;
+
     private String guestName;
 
     private String guestLast4Ssn;
 
+    // Not loaded with the booking, the responses that show it use BookingRepository.findWithPropertyById
+    @ToString.Exclude
     @Audited(targetAuditMode = NOT_AUDITED)
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "property_id")
     private Property property;
 }
@@ -0,0 +1,60 @@
+package com.example.bookingtechtest.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A booking change waiting to be written to the Envers audit tables. Rows are inserted in the
+ * transaction that changed the booking and removed once their revision is written, so a change
+ * whose audit row was not written yet survives a crash.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Table(name = "TB_BOOKINGS_AUD_OUTBOX", indexes = @Index(name = "IDX_BOOKINGS_AUD_OUTBOX_TRANSACTION", columnList = "transaction_id"))
+public class BookingAuditOutbox {
+    @Id
+    @Column(name = "ID", updatable = false, nullable = false, length = 16)
+    private UUID id;
+
+    // Changes of one transaction become one revision
+    @Column(nullable = false)
+    private UUID transactionId;
+
+    // Epoch millis, like the revision timestamp of Envers
+    @Column(nullable = false)
+    private long changedAt;
+
+    @Column(name = "revtype", nullable = false)
+    private byte revisionType;
+
+    @Column(nullable = false)
+    private UUID bookingId;
+
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+
+    @Column(columnDefinition = "smallint")
+    private Short status;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_updated_at")
+    private LocalDateTime lastUpdatedAt;
+
+    private String guestName;
+
+    private String guestLast4Ssn;
+
+    private UUID propertyId;
+}
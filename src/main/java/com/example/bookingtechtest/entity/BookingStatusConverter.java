@@ -0,0 +1,23 @@
+package com.example.bookingtechtest.entity;
+
+import com.example.bookingtechtest.enums.BookingStatus;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a {@link BookingStatus} as its id in a smallint column, so renaming a constant or
+ * its display name never rewrites rows and the status fits in two bytes of every index entry.
+ */
+@Converter
+public class BookingStatusConverter implements AttributeConverter<BookingStatus, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(BookingStatus status) {
+        return status == null ? null : status.getId().shortValue();
+    }
+
+    @Override
+    public BookingStatus convertToEntityAttribute(Short id) {
+        return id == null ? null : BookingStatus.fromId(id.intValue());
+    }
+}
@@ -3,7 +3,8 @@ package com.example.bookingtechtest.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
-import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 
 import java.util.List;
@@ -16,18 +17,31 @@ import java.util.UUID;
 @NoArgsConstructor
 @ToString
 @Table(name = "TB_PROPERTY")
+// Read on every booking and block write and almost never changed, so it is kept in the second-level
+// cache. Changes made through Hibernate update or evict the entry when they commit.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Property.CACHE_REGION)
 public class Property {
+    public static final String CACHE_REGION = "property";
+
     @Id
-    @GeneratedValue(generator = "UUID")
+    @UuidV7
     @Column(name = "ID", updatable = false, nullable = false, length = 16)
     private UUID id;
 
     @NotNull
     private String ownerName;
 
+    // Part of the ETag of its bookings, whose responses show the property
+    @Version
+    private Long version;
+
+    // Every booking of the property, list them page by page through BookingRepository instead
+    @ToString.Exclude
     @OneToMany(mappedBy = "property", cascade = CascadeType.ALL)
     private List<Booking> bookings;
 
+    @ToString.Exclude
     @OneToMany(mappedBy = "property", cascade = CascadeType.ALL)
     private List<Block> block;
 
@@ -14,4 +14,28 @@ public enum BookingStatus {
     private Integer id;
 
     private String name;
+
+    // Only active bookings occupy their property
+    public boolean isActive() {
+        return this != BOOKING_CANCELED;
+    }
+
+    public static BookingStatus fromId(Integer id) {
+        for (BookingStatus status : values()) {
+            if (status.id.equals(id)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown booking status id: " + id);
+    }
+
+    // Takes the display name the responses show, in any case, or the constant name
+    public static BookingStatus fromName(String name) {
+        for (BookingStatus status : values()) {
+            if (status.name.equalsIgnoreCase(name) || status.name().equalsIgnoreCase(name)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown booking status: " + name);
+    }
 }
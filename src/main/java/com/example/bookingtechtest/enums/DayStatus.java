@@ -0,0 +1,9 @@
+package com.example.bookingtechtest.enums;
+
+public enum DayStatus {
+    FREE,
+    BOOKED,
+    BLOCKED,
+    // Reserved by a hold that was not confirmed into a booking yet
+    HELD
+}
@@ -0,0 +1,12 @@
+package com.example.bookingtechtest.mapper;
+
+import com.example.bookingtechtest.dto.BlockDTO;
+import com.example.bookingtechtest.entity.Block;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring", uses = {PropertyMapper.class, DateMapper.class}, injectionStrategy = InjectionStrategy.CONSTRUCTOR)
+public interface BlockMapper {
+
+    BlockDTO toBlockDTO(Block block);
+}
@@ -0,0 +1,21 @@
+package com.example.bookingtechtest.mapper;
+
+import com.example.bookingtechtest.dto.BookingDTO;
+import com.example.bookingtechtest.entity.Booking;
+import com.example.bookingtechtest.enums.BookingStatus;
+import com.example.bookingtechtest.response.CreateBookingResponse;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring", uses = {PropertyMapper.class, DateMapper.class}, injectionStrategy = InjectionStrategy.CONSTRUCTOR)
+public interface BookingMapper {
+
+    BookingDTO toBookingDTO(Booking booking);
+
+    CreateBookingResponse toCreateBookingResponse(Booking booking);
+
+    // The API keeps returning the display name ("Booked", "Canceled", ...)
+    default String asName(BookingStatus status) {
+        return status == null ? null : status.getName();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.bookingtechtest.mapper;
+
+import org.mapstruct.Mapper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Dates are written with {@code toString()}, the format the API has always returned
+ * (MapStruct's own conversion would format date-times slightly differently).
+ */
+@Mapper(componentModel = "spring")
+public interface DateMapper {
+
+    default String asString(LocalDate date) {
+        return date == null ? null : date.toString();
+    }
+
+    default String asString(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.toString();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.bookingtechtest.mapper;
+
+import com.example.bookingtechtest.dto.PropertyDTO;
+import com.example.bookingtechtest.entity.Property;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface PropertyMapper {
+
+    PropertyDTO toPropertyDTO(Property property);
+}
@@ -1,7 +1,8 @@
 package com.example.bookingtechtest.repository;
 
+import com.example.bookingtechtest.availability.OccupiedRange;
 import com.example.bookingtechtest.entity.Block;
-import com.example.bookingtechtest.entity.Property;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,15 +13,29 @@ import java.util.UUID;
 
 public interface BlockRepository extends JpaRepository<Block, UUID> {
 
-    @Query("SELECT b FROM Block b " +
-            "WHERE b.property = :property " +
-            "AND (:startDate BETWEEN b.startDate AND b.endDate " +
-            "OR :endDate BETWEEN b.startDate AND b.endDate " +
-            "OR b.startDate BETWEEN :startDate AND :endDate " +
-            "OR b.endDate BETWEEN :startDate AND :endDate)")
-    List<Block> findOverlappingBlocksForProperty(
-            @Param("property") Property property,
+    // Compares the foreign key column so the (property_id, start_date, end_date) index is used, and reads ids only
+    @Query("SELECT b.id FROM Block b " +
+            "WHERE b.property.id = :propertyId " +
+            "AND b.startDate <= :endDate " +
+            "AND b.endDate >= :startDate " +
+            "AND (:excludeId IS NULL OR b.id <> :excludeId)")
+    List<UUID> findOverlappingBlocksIds(
+            @Param("propertyId") UUID propertyId,
             @Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate
+            @Param("endDate") LocalDate endDate,
+            @Param("excludeId") UUID excludeId,
+            Limit limit
     );
+
+    default boolean existsOverlappingBlocksForProperty(UUID propertyId, LocalDate startDate, LocalDate endDate, UUID excludeId) {
+        return !findOverlappingBlocksIds(propertyId, startDate, endDate, excludeId, Limit.of(1)).isEmpty();
+    }
+
+    @Query("SELECT new com.example.bookingtechtest.availability.OccupiedRange(b.id, b.property.id, b.startDate, b.endDate) " +
+            "FROM Block b")
+    List<OccupiedRange> findAllOccupiedRanges();
+
+    @Query("SELECT new com.example.bookingtechtest.availability.OccupiedRange(b.id, b.property.id, b.startDate, b.endDate) " +
+            "FROM Block b WHERE b.property.id = :propertyId")
+    List<OccupiedRange> findOccupiedRangesByPropertyId(@Param("propertyId") UUID propertyId);
 }
@@ -1,27 +1,87 @@
 package com.example.bookingtechtest.repository;
 
+import com.example.bookingtechtest.availability.LongestStay;
+import com.example.bookingtechtest.availability.OccupiedRange;
+import com.example.bookingtechtest.dto.BookingSummaryDTO;
 import com.example.bookingtechtest.entity.Booking;
-import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.enums.BookingStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface BookingRepository extends JpaRepository<Booking, UUID> {
 
-    @Query("SELECT b FROM Booking b " +
-            "WHERE b.property = :property " +
-            "AND (:startDate BETWEEN b.startDate AND b.endDate " +
-            "OR :endDate BETWEEN b.startDate AND b.endDate " +
-            "OR b.startDate BETWEEN :startDate AND :endDate " +
-            "OR b.endDate BETWEEN :startDate AND :endDate)")
-    List<Booking> findOverlappingBookingsForProperty(
-            @Param("property") Property property,
+    // The property is lazy, this reads it in the same query for responses that show it. A fetch join in
+    // JPQL keeps the cached query plan, with an @EntityGraph the lookup was several times slower
+    @Query("SELECT b FROM Booking b LEFT JOIN FETCH b.property WHERE b.id = :id")
+    Optional<Booking> findWithPropertyById(@Param("id") UUID id);
+
+    // Compares the foreign key column so the (property_id, start_date, end_date, status) index is used,
+    // and reads ids only so canceled rows are skipped without visiting the table. A booking being
+    // updated passes its own id as excludeId, so it does not overlap its current dates
+    @Query("SELECT b.id FROM Booking b " +
+            "WHERE b.property.id = :propertyId " +
+            "AND b.startDate <= :endDate " +
+            "AND b.endDate >= :startDate " +
+            "AND b.status <> com.example.bookingtechtest.enums.BookingStatus.BOOKING_CANCELED " +
+            "AND (:excludeId IS NULL OR b.id <> :excludeId)")
+    List<UUID> findOverlappingBookingsIds(
+            @Param("propertyId") UUID propertyId,
             @Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate
+            @Param("endDate") LocalDate endDate,
+            @Param("excludeId") UUID excludeId,
+            Limit limit
     );
 
+    default boolean existsOverlappingBookingsForProperty(UUID propertyId, LocalDate startDate, LocalDate endDate, UUID excludeId) {
+        return !findOverlappingBookingsIds(propertyId, startDate, endDate, excludeId, Limit.of(1)).isEmpty();
+    }
+
+    @Query("SELECT new com.example.bookingtechtest.availability.OccupiedRange(b.id, b.property.id, b.startDate, b.endDate) " +
+            "FROM Booking b WHERE b.status <> com.example.bookingtechtest.enums.BookingStatus.BOOKING_CANCELED")
+    List<OccupiedRange> findAllOccupiedRanges();
+
+    @Query("SELECT new com.example.bookingtechtest.availability.OccupiedRange(b.id, b.property.id, b.startDate, b.endDate) " +
+            "FROM Booking b WHERE b.property.id = :propertyId " +
+            "AND b.status <> com.example.bookingtechtest.enums.BookingStatus.BOOKING_CANCELED")
+    List<OccupiedRange> findOccupiedRangesByPropertyId(@Param("propertyId") UUID propertyId);
+
+    // Canceled bookings are not in the availability index, but the bookings listing still returns them,
+    // so the index needs their longest stay to know how far back a listing has to seek
+    @Query("SELECT MAX((b.endDate - b.startDate) BY DAY) FROM Booking b WHERE b.property.id = :propertyId " +
+            "AND b.status = com.example.bookingtechtest.enums.BookingStatus.BOOKING_CANCELED")
+    Long findLongestCanceledStayDays(@Param("propertyId") UUID propertyId);
+
+    @Query("SELECT new com.example.bookingtechtest.availability.LongestStay(b.property.id, MAX((b.endDate - b.startDate) BY DAY)) " +
+            "FROM Booking b WHERE b.status = com.example.bookingtechtest.enums.BookingStatus.BOOKING_CANCELED " +
+            "GROUP BY b.property.id")
+    List<LongestStay> findLongestCanceledStays();
+
+    // Keyset pagination on the (property_id, start_date, id) index: a page seeks right after the last
+    // booking of the previous one instead of skipping an offset, and only reads the columns it returns.
+    // Ordering by the property too, constant here, lets H2 read the index in order instead of sorting
+    // every booking of the property
+    @Query("SELECT new com.example.bookingtechtest.dto.BookingSummaryDTO(b.id, b.property.id, b.startDate, b.endDate, b.status, b.guestName, b.guestLast4Ssn) " +
+            "FROM Booking b WHERE b.property.id = :propertyId " +
+            "AND b.startDate >= :afterStartDate " +
+            "AND (b.startDate > :afterStartDate OR b.id > :afterId) " +
+            "AND b.startDate <= :endDate " +
+            "AND b.endDate >= :startDate " +
+            "AND (:status IS NULL OR b.status = :status) " +
+            "ORDER BY b.property.id, b.startDate, b.id")
+    List<BookingSummaryDTO> findBookingsPage(
+            @Param("propertyId") UUID propertyId,
+            @Param("status") BookingStatus status,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("afterStartDate") LocalDate afterStartDate,
+            @Param("afterId") UUID afterId,
+            Limit limit
+    );
 }
@@ -1,10 +1,44 @@
 package com.example.bookingtechtest.repository;
 
+import com.example.bookingtechtest.dto.PropertyDTO;
 import com.example.bookingtechtest.entity.Property;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.UUID;
 
 public interface PropertyRepository extends JpaRepository<Property, UUID> {
 
+    @Query("SELECT new com.example.bookingtechtest.dto.PropertyDTO(p.id, p.ownerName) FROM Property p " +
+            "WHERE NOT EXISTS (SELECT 1 FROM Booking b WHERE b.property = p " +
+            "AND b.startDate <= :endDate AND b.endDate >= :startDate " +
+            "AND b.status <> com.example.bookingtechtest.enums.BookingStatus.BOOKING_CANCELED) " +
+            "AND NOT EXISTS (SELECT 1 FROM Block k WHERE k.property = p " +
+            "AND k.startDate <= :endDate AND k.endDate >= :startDate) " +
+            "ORDER BY p.id")
+    Slice<PropertyDTO> findAvailableProperties(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            Pageable pageable
+    );
+
+    @Query("SELECT new com.example.bookingtechtest.dto.PropertyDTO(p.id, p.ownerName) FROM Property p " +
+            "WHERE p.id IN :propertyIds " +
+            "AND NOT EXISTS (SELECT 1 FROM Booking b WHERE b.property = p " +
+            "AND b.startDate <= :endDate AND b.endDate >= :startDate " +
+            "AND b.status <> com.example.bookingtechtest.enums.BookingStatus.BOOKING_CANCELED) " +
+            "AND NOT EXISTS (SELECT 1 FROM Block k WHERE k.property = p " +
+            "AND k.startDate <= :endDate AND k.endDate >= :startDate) " +
+            "ORDER BY p.id")
+    Slice<PropertyDTO> findAvailablePropertiesIn(
+            @Param("propertyIds") Collection<UUID> propertyIds,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            Pageable pageable
+    );
 }
@@ -0,0 +1,17 @@
+package com.example.bookingtechtest.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkCreateBookingRequest {
+
+    @NotEmpty
+    @Size(max = 10000)
+    private List<@NotNull @Valid CreateBookingRequest> bookings;
+}
@@ -0,0 +1,22 @@
+package com.example.bookingtechtest.response;
+
+import com.example.bookingtechtest.dto.PropertyDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailablePropertiesResponse {
+    private String startDate;
+    private String endDate;
+    private Integer page;
+    private Integer size;
+    private boolean hasNext;
+    private List<PropertyDTO> properties;
+}
@@ -0,0 +1,15 @@
+package com.example.bookingtechtest.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+@Getter
+@AllArgsConstructor
+public class BlockImportResult {
+    private final long imported;
+    private final long rejected;
+    // A CSV file with one line per rejected row, removed by whoever sends it back
+    private final Path errorFile;
+}
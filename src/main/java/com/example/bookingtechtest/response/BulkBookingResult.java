@@ -0,0 +1,17 @@
+package com.example.bookingtechtest.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBookingResult {
+    private Integer index;
+    private boolean created;
+    private CreateBookingResponse booking;
+    private String error;
+}
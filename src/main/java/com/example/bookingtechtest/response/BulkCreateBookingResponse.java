@@ -0,0 +1,18 @@
+package com.example.bookingtechtest.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCreateBookingResponse {
+    private Integer created;
+    private Integer rejected;
+    private List<BulkBookingResult> results;
+}
@@ -0,0 +1,20 @@
+package com.example.bookingtechtest.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldResponse {
+    private UUID id;
+    private UUID propertyId;
+    private String startDate;
+    private String endDate;
+    private String expiresAt;
+}
@@ -0,0 +1,22 @@
+package com.example.bookingtechtest.response;
+
+import com.example.bookingtechtest.dto.BookingSummaryDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyBookingsResponse {
+    private UUID propertyId;
+    private Integer size;
+    // Passed back as the cursor to get the next page, null on the last one
+    private String nextCursor;
+    private List<BookingSummaryDTO> bookings;
+}
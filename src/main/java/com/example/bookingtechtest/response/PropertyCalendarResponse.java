@@ -0,0 +1,24 @@
+package com.example.bookingtechtest.response;
+
+import com.example.bookingtechtest.dto.CalendarDayDTO;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyCalendarResponse {
+    private UUID propertyId;
+    private String startDate;
+    private String endDate;
+    @JsonIgnore
+    private String version;
+    private List<CalendarDayDTO> days;
+}
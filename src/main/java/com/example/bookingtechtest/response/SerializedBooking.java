@@ -0,0 +1,29 @@
+package com.example.bookingtechtest.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The JSON of a {@code BookingDTO} together with the versions of the booking and of the property
+ * it was built from.
+ */
+@Getter
+@AllArgsConstructor
+public class SerializedBooking {
+
+    private Long version;
+
+    private Long propertyVersion;
+
+    private byte[] json;
+
+    public String getETag() {
+        return eTag(version, propertyVersion);
+    }
+
+    // Strong, it changes whenever the booking or its property is written. If-Match only compares the
+    // booking version, the part before the dash
+    public static String eTag(Long version, Long propertyVersion) {
+        return "\"" + version + "-" + propertyVersion + "\"";
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.bookingtechtest.response;
+
+import com.example.bookingtechtest.dto.BookingDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An updated booking together with the versions it was saved at, so its ETag can be returned
+ * like the one of {@link SerializedBooking}.
+ */
+@Getter
+@AllArgsConstructor
+public class UpdatedBooking {
+
+    private BookingDTO booking;
+
+    private Long version;
+
+    private Long propertyVersion;
+
+    public String getETag() {
+        return SerializedBooking.eTag(version, propertyVersion);
+    }
+}
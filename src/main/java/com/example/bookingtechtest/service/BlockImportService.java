@@ -0,0 +1,311 @@
+package com.example.bookingtechtest.service;
+
+import com.example.bookingtechtest.availability.PropertyAvailabilityIndex;
+import com.example.bookingtechtest.availability.PropertyLockManager;
+import com.example.bookingtechtest.csv.CsvReader;
+import com.example.bookingtechtest.csv.CsvWriter;
+import com.example.bookingtechtest.entity.Block;
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.exception.OverlapedBookingException;
+import com.example.bookingtechtest.repository.BlockRepository;
+import com.example.bookingtechtest.repository.PropertyRepository;
+import com.example.bookingtechtest.response.BlockImportResult;
+import com.example.bookingtechtest.validator.PropertyAvailabilityValidator;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports blocks from a CSV file with a header line naming the {@code propertyId}, {@code startDate}
+ * and {@code endDate} columns, the way the blocks export writes them. The file is read line by line
+ * and imported in chunks, each committed in one transaction under the locks of its properties, so a
+ * large file never sits in memory and a failure only loses the chunk it happened in. Rejected rows,
+ * including lines too long to be a block, are written to an error file on disk.
+ */
+@Slf4j
+@Service
+public class BlockImportService {
+    static final List<String> ERROR_COLUMNS = List.of("line", "propertyId", "startDate", "endDate", "error");
+    // Far above a block row, a longer line is rejected without being read into memory
+    static final int MAX_LINE_LENGTH = 4096;
+
+    private final BlockRepository blockRepository;
+    private final PropertyRepository propertyRepository;
+    private final PropertyAvailabilityValidator propertyAvailabilityValidator;
+    private final PropertyAvailabilityIndex propertyAvailabilityIndex;
+    private final PropertyLockManager propertyLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int chunkSize;
+
+    public BlockImportService(BlockRepository blockRepository, PropertyRepository propertyRepository,
+                              PropertyAvailabilityValidator propertyAvailabilityValidator,
+                              PropertyAvailabilityIndex propertyAvailabilityIndex, PropertyLockManager propertyLockManager,
+                              TransactionTemplate transactionTemplate, EntityManager entityManager,
+                              @Value("${booking.import.chunk-size:500}") int chunkSize) {
+        this.blockRepository = blockRepository;
+        this.propertyRepository = propertyRepository;
+        this.propertyAvailabilityValidator = propertyAvailabilityValidator;
+        this.propertyAvailabilityIndex = propertyAvailabilityIndex;
+        this.propertyLockManager = propertyLockManager;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.chunkSize = chunkSize;
+    }
+
+    public BlockImportResult importBlocks(InputStream csv) {
+        log.info("Importing blocks");
+        long start = System.nanoTime();
+        Path errorFile = null;
+        try {
+            errorFile = Files.createTempFile("block-import-errors-", ".csv");
+            long imported = 0;
+            long rejected = 0;
+            try (CsvReader reader = new CsvReader(csv, MAX_LINE_LENGTH);
+                 OutputStream errorOut = Files.newOutputStream(errorFile)) {
+                CsvWriter errors = new CsvWriter(errorOut, ERROR_COLUMNS);
+                String header = reader.readLine();
+                if (reader.isTruncated()) {
+                    throw new IllegalArgumentException("The header line is longer than " + MAX_LINE_LENGTH + " characters");
+                }
+                Columns columns = Columns.of(header);
+                List<ImportRow> chunk = new ArrayList<>(chunkSize);
+                int lineNumber = 1;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (reader.isTruncated()) {
+                        chunk.add(ImportRow.rejected(lineNumber, "The line is longer than " + MAX_LINE_LENGTH + " characters"));
+                    } else if (!line.isBlank()) {
+                        chunk.add(columns.row(lineNumber, line));
+                    }
+                    if (chunk.size() == chunkSize) {
+                        int chunkImported = importChunk(chunk, errors);
+                        imported += chunkImported;
+                        rejected += chunk.size() - chunkImported;
+                        chunk.clear();
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    int chunkImported = importChunk(chunk, errors);
+                    imported += chunkImported;
+                    rejected += chunk.size() - chunkImported;
+                }
+                errors.finish();
+            }
+            log.info("Imported {} blocks, rejected {}, in {} ms", imported, rejected, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return new BlockImportResult(imported, rejected, errorFile);
+        } catch (IOException e) {
+            deleteQuietly(errorFile);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            deleteQuietly(errorFile);
+            throw e;
+        }
+    }
+
+    // Returns how many rows of the chunk were imported, the others go to the error file in line order
+    private int importChunk(List<ImportRow> chunk, CsvWriter errors) throws IOException {
+        Map<UUID, List<ImportRow>> rowsByProperty = new LinkedHashMap<>();
+        for (ImportRow row : chunk) {
+            if (row.error == null) {
+                rowsByProperty.computeIfAbsent(row.propertyId, id -> new ArrayList<>()).add(row);
+            }
+        }
+        Map<UUID, Property> properties = propertyRepository.findAllById(rowsByProperty.keySet()).stream()
+                .collect(Collectors.toMap(Property::getId, Function.identity()));
+
+        // The properties were read before taking the locks, like for a single block. Holding the locks
+        // of every property of the chunk keeps the checks valid until the chunk commits.
+        propertyLockManager.withLocks(properties.keySet(), () -> {
+            List<ImportRow> acceptedRows = new ArrayList<>();
+            List<Block> acceptedBlocks = new ArrayList<>();
+            rowsByProperty.forEach((propertyId, rows) -> {
+                Property property = properties.get(propertyId);
+                if (property == null) {
+                    rows.forEach(row -> row.error = "Property not found with id: " + propertyId);
+                } else {
+                    acceptForProperty(property, rows, acceptedRows, acceptedBlocks);
+                }
+            });
+            saveChunk(acceptedRows, acceptedBlocks);
+        });
+        // The saved blocks are in the index now, they do not need to stay in the persistence context
+        entityManager.clear();
+
+        int imported = 0;
+        for (ImportRow row : chunk) {
+            if (row.error == null) {
+                imported++;
+            } else {
+                errors.write(new Object[]{row.line, row.propertyIdText, row.startDateText, row.endDateText, row.error});
+            }
+        }
+        return imported;
+    }
+
+    private void acceptForProperty(Property property, List<ImportRow> rows, List<ImportRow> acceptedRows,
+                                   List<Block> acceptedBlocks) {
+        // Blocks accepted so far in this chunk, by start date. They never overlap each other, and the
+        // blocks of earlier chunks were committed and are checked through the validator.
+        TreeMap<LocalDate, LocalDate> acceptedRanges = new TreeMap<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (ImportRow row : rows) {
+            try {
+                propertyAvailabilityValidator.validateBlockPropertyAvailability(row.startDate, row.endDate, property);
+                Map.Entry<LocalDate, LocalDate> previous = acceptedRanges.floorEntry(row.endDate);
+                if (previous != null && !previous.getValue().isBefore(row.startDate)) {
+                    throw new OverlapedBookingException("This block overlaps another block of the same file.");
+                }
+            } catch (OverlapedBookingException | IllegalArgumentException e) {
+                row.error = e.getMessage();
+                continue;
+            }
+            acceptedRanges.put(row.startDate, row.endDate);
+            acceptedRows.add(row);
+            Block block = new Block();
+            block.setStartDate(row.startDate);
+            block.setEndDate(row.endDate);
+            block.setProperty(property);
+            block.setCreated_at(now);
+            acceptedBlocks.add(block);
+        }
+    }
+
+    private void saveChunk(List<ImportRow> acceptedRows, List<Block> acceptedBlocks) {
+        if (acceptedBlocks.isEmpty()) {
+            return;
+        }
+        try {
+            // One transaction for the whole chunk, the inserts are sent in JDBC batches
+            transactionTemplate.executeWithoutResult(status -> {
+                blockRepository.saveAll(acceptedBlocks);
+                acceptedBlocks.forEach(propertyAvailabilityIndex::blockSaved);
+            });
+        } catch (DataAccessException e) {
+            log.error("An error occurred while saving a chunk of {} imported blocks", acceptedBlocks.size(), e);
+            acceptedRows.forEach(row -> row.error = "The block could not be saved. Please try again");
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete the import error file {}", file, e);
+        }
+    }
+
+    // Positions of the imported columns, taken from the header line
+    private static final class Columns {
+        private final int propertyId;
+        private final int startDate;
+        private final int endDate;
+
+        private Columns(int propertyId, int startDate, int endDate) {
+            this.propertyId = propertyId;
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        static Columns of(String header) {
+            if (header == null) {
+                throw new IllegalArgumentException("The file is empty. Please send a header line and one block per line");
+            }
+            // Spreadsheets often save UTF-8 with a byte order mark
+            List<String> names = CsvReader.split(header.startsWith("\uFEFF") ? header.substring(1) : header).stream()
+                    .map(String::trim)
+                    .toList();
+            return new Columns(position(names, "propertyId"), position(names, "startDate"), position(names, "endDate"));
+        }
+
+        ImportRow row(int line, String text) {
+            List<String> values = CsvReader.split(text);
+            ImportRow row = new ImportRow(line, value(values, propertyId), value(values, startDate), value(values, endDate));
+            if (row.propertyIdText == null || row.startDateText == null || row.endDateText == null) {
+                row.error = "The propertyId, startDate and endDate are required";
+                return row;
+            }
+            try {
+                row.propertyId = UUID.fromString(row.propertyIdText);
+            } catch (IllegalArgumentException e) {
+                row.error = "Invalid propertyId: " + row.propertyIdText;
+                return row;
+            }
+            try {
+                row.startDate = LocalDate.parse(row.startDateText);
+                row.endDate = LocalDate.parse(row.endDateText);
+            } catch (DateTimeParseException e) {
+                row.error = "Invalid date: " + e.getParsedString() + ". Please use yyyy-MM-dd";
+            }
+            return row;
+        }
+
+        private static int position(List<String> names, String column) {
+            for (int i = 0; i < names.size(); i++) {
+                if (names.get(i).equalsIgnoreCase(column)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("The header line has no " + column + " column");
+        }
+
+        private static String value(List<String> values, int position) {
+            if (position >= values.size()) {
+                return null;
+            }
+            String value = values.get(position).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+
+    private static final class ImportRow {
+        private final int line;
+        private final String propertyIdText;
+        private final String startDateText;
+        private final String endDateText;
+        private UUID propertyId;
+        private LocalDate startDate;
+        private LocalDate endDate;
+        private String error;
+
+        private ImportRow(int line, String propertyIdText, String startDateText, String endDateText) {
+            this.line = line;
+            this.propertyIdText = propertyIdText;
+            this.startDateText = startDateText;
+            this.endDateText = endDateText;
+        }
+
+        static ImportRow rejected(int line, String error) {
+            ImportRow row = new ImportRow(line, null, null, null);
+            row.error = error;
+            return row;
+        }
+    }
+}
@@ -1,60 +1,109 @@
 package com.example.bookingtechtest.service;
 
+import com.example.bookingtechtest.availability.PropertyAvailabilityIndex;
+import com.example.bookingtechtest.availability.PropertyLockManager;
 import com.example.bookingtechtest.dto.BlockDTO;
 import com.example.bookingtechtest.entity.Block;
 import com.example.bookingtechtest.exception.ResourceNotFoundException;
+import com.example.bookingtechtest.mapper.BlockMapper;
 import com.example.bookingtechtest.repository.BlockRepository;
+import com.example.bookingtechtest.repository.PropertyRepository;
 import com.example.bookingtechtest.validator.PropertyAvailabilityValidator;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
 @Service
 public class BlockService {
     private final BlockRepository blockRepository;
-    private ModelMapper modelMapper;
+    private final PropertyRepository propertyRepository;
+    private final BlockMapper blockMapper;
 
     private PropertyAvailabilityValidator propertyAvailabilityValidator;
 
-    public BlockService(BlockRepository blockRepository,  ModelMapper modelMapper, PropertyAvailabilityValidator propertyAvailabilityValidator) {
+    private final PropertyAvailabilityIndex propertyAvailabilityIndex;
+
+    private final PropertyLockManager propertyLockManager;
+
+    private final OptimisticLockRetry optimisticLockRetry;
+
+    private final IdempotencyStore idempotencyStore;
+
+    public BlockService(BlockRepository blockRepository, PropertyRepository propertyRepository, BlockMapper blockMapper, PropertyAvailabilityValidator propertyAvailabilityValidator,
+                        PropertyAvailabilityIndex propertyAvailabilityIndex, PropertyLockManager propertyLockManager,
+                        OptimisticLockRetry optimisticLockRetry, IdempotencyStore idempotencyStore) {
         this.blockRepository = blockRepository;
-        this.modelMapper = modelMapper;
+        this.propertyRepository = propertyRepository;
+        this.blockMapper = blockMapper;
         this.propertyAvailabilityValidator = propertyAvailabilityValidator;
+        this.propertyAvailabilityIndex = propertyAvailabilityIndex;
+        this.propertyLockManager = propertyLockManager;
+        this.optimisticLockRetry = optimisticLockRetry;
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    // A repeated idempotency key gets the response of the first request, without checking availability again
+    public BlockDTO createBlock(Block block, String idempotencyKey) {
+        return idempotencyStore.execute("createBlock", idempotencyKey, blockRequest(block), () -> createBlock(block));
     }
 
     public BlockDTO createBlock(Block block) {
         // Logic to save the block in the database
         block.setCreated_at(LocalDateTime.now());
-        propertyAvailabilityValidator.validateBlockPropertyAvailability(block.getStartDate(),block.getEndDate(), block.getProperty());
 
-        blockRepository.save(block);
-        return modelMapper.map(block, BlockDTO.class);
+        // Read before taking the lock: waiting for a pooled connection while holding it deadlocks
+        // with writers of the same property that already hold a connection and wait for the lock
+        UUID propertyId = propertyIdOf(block);
+        if (propertyId == null) {
+            throw new IllegalArgumentException("The property is required. Please inform the property id");
+        }
+        block.setProperty(propertyRepository.findById(propertyId)
+                .orElseThrow(() -> new ResourceNotFoundException("Property not found with id: " + propertyId)));
+        propertyLockManager.withLock(propertyId, () -> {
+            propertyAvailabilityValidator.validateBlockPropertyAvailability(block.getStartDate(),block.getEndDate(), block.getProperty());
+
+            blockRepository.save(block);
+            propertyAvailabilityIndex.blockSaved(block);
+        });
+        return blockMapper.toBlockDTO(block);
     }
 
     public BlockDTO updateBlock(UUID id, Block updatedBlock) {
-        // Logic to check if the block with the given id exists
-        Block existingBlock = getBlock(id);
-
-        // Update the existing block details with the new details
-        existingBlock.setStartDate(updatedBlock.getStartDate());
-        existingBlock.setEndDate(updatedBlock.getEndDate());
-
-        propertyAvailabilityValidator.validateBlockPropertyAvailability(updatedBlock.getStartDate(),updatedBlock.getEndDate(), updatedBlock.getProperty());
-
-        existingBlock.setLast_updated_at(LocalDateTime.now());
-        blockRepository.save(existingBlock);
-
-        return modelMapper.map(updatedBlock, BlockDTO.class);
+        optimisticLockRetry.execute("updateBlock", () -> {
+            // Logic to check if the block with the given id exists
+            Block existingBlock = getBlock(id);
+
+            propertyLockManager.withLock(requiredPropertyIdOf(existingBlock, "updated"), () -> {
+                // A block cannot move to another property, so availability is checked against its current one,
+                // without its own current dates
+                propertyAvailabilityValidator.validateBlockPropertyAvailability(updatedBlock.getStartDate(),updatedBlock.getEndDate(), existingBlock.getProperty(), id);
+
+                // Update the existing block details with the new details
+                existingBlock.setStartDate(updatedBlock.getStartDate());
+                existingBlock.setEndDate(updatedBlock.getEndDate());
+                existingBlock.setLast_updated_at(LocalDateTime.now());
+                blockRepository.save(existingBlock);
+                propertyAvailabilityIndex.blockSaved(existingBlock);
+            });
+        });
+
+        return blockMapper.toBlockDTO(updatedBlock);
     }
 
     public void deleteBlock(UUID id) {
-        // Logic to check if the block with the given id exists
-        Block existingBlock = getBlock(id);
-
-        // Delete the block from the database
-        blockRepository.delete(existingBlock);
+        optimisticLockRetry.execute("deleteBlock", () -> {
+            // Logic to check if the block with the given id exists
+            Block existingBlock = getBlock(id);
+
+            // Delete the block from the database
+            propertyLockManager.withLock(requiredPropertyIdOf(existingBlock, "deleted"), () -> {
+                blockRepository.delete(existingBlock);
+                propertyAvailabilityIndex.blockDeleted(existingBlock);
+            });
+        });
     }
 
     public Block getBlock(UUID id) {
@@ -62,6 +111,24 @@ public class BlockService {
         return blockRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Block not found with id: " + id));
     }
+
+    // What the client asked for, the fingerprint does not walk the entity and its property
+    private static List<Object> blockRequest(Block block) {
+        return Arrays.asList(propertyIdOf(block), block.getStartDate(), block.getEndDate());
+    }
+
+    private static UUID propertyIdOf(Block block) {
+        return block.getProperty() != null ? block.getProperty().getId() : null;
+    }
+
+    // The lock and the availability index both need the property, a row without one is rejected up front
+    private static UUID requiredPropertyIdOf(Block block, String action) {
+        UUID propertyId = propertyIdOf(block);
+        if (propertyId == null) {
+            throw new IllegalArgumentException("The block has no property and cannot be " + action);
+        }
+        return propertyId;
+    }
 }
 
 
@@ -0,0 +1,166 @@
+package com.example.bookingtechtest.service;
+
+import com.example.bookingtechtest.dto.BookingDTO;
+import com.example.bookingtechtest.entity.Booking;
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.mapper.BookingMapper;
+import com.example.bookingtechtest.response.SerializedBooking;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.example.bookingtechtest.util.Transactions.afterCommit;
+
+/**
+ * Serialized {@link BookingDTO} responses and the version they were built from, by booking id,
+ * bounded in size and age.
+ * <p>
+ * Every write to a booking must call {@link #invalidate(UUID)}, which takes effect once the
+ * write commits. It removes the entry even while it is still loading, so a response read
+ * before the commit never outlives it. A write to a property drops the entries of its own
+ * bookings through {@link #invalidateProperty(UUID)}, the responses show the property. A load
+ * that was running while any property changed is not kept either, it may have read the
+ * property before the change. Another instance's writes are only seen once the entry expires.
+ * <p>
+ * The first reader of a missing id loads it on its own thread, outside of the cache's locks,
+ * and concurrent readers of the same id wait for that load instead of repeating it. Loading
+ * inside the map's compute would make an invalidation under a property lock wait for a reader
+ * that is itself waiting for a pooled connection.
+ */
+@Component
+public class BookingResponseCache {
+    // The ETag of a booking without a property, which can never get one
+    static final long NO_PROPERTY_VERSION = 0L;
+
+    private final AsyncCache<UUID, CachedBooking> responses;
+    // The cached bookings of each property. Only changed inside compute, a removed set is no longer shared
+    private final ConcurrentMap<UUID, Set<UUID>> bookingIdsByProperty = new ConcurrentHashMap<>();
+    private final AtomicLong propertyChanges = new AtomicLong();
+    private final BookingMapper bookingMapper;
+    private final ObjectMapper objectMapper;
+
+    public BookingResponseCache(BookingMapper bookingMapper, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                @Value("${booking.cache.max-size:10000}") long maxSize,
+                                @Value("${booking.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.bookingMapper = bookingMapper;
+        this.objectMapper = objectMapper;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                // Runs inside the eviction, before the id can be loaded and tracked again
+                .<UUID, CachedBooking>evictionListener((id, cached, cause) -> forget(id, cached))
+                .recordStats()
+                .buildAsync();
+        // cache.gets (hit/miss), cache.puts, cache.evictions and cache.size, tagged cache=bookings
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "bookings");
+    }
+
+    public SerializedBooking get(UUID id, Function<UUID, Booking> loader) {
+        CompletableFuture<CachedBooking> loading = new CompletableFuture<>();
+        CompletableFuture<CachedBooking> response = responses.get(id, (key, executor) -> loading);
+        if (response == loading) {
+            long changesBefore = propertyChanges.get();
+            try {
+                CachedBooking loaded = load(id, loader);
+                loading.complete(loaded);
+                track(id, loaded.propertyId, changesBefore, loading);
+                return loaded.response;
+            } finally {
+                // A failed load is dropped from the cache without a trace, the next reader tries again
+                loading.complete(null);
+            }
+        }
+        CachedBooking loaded = response.join();
+        // The load this reader waited for failed, repeating it gives this reader its own answer
+        return (loaded != null ? loaded : load(id, loader)).response;
+    }
+
+    public void invalidate(UUID id) {
+        afterCommit(() -> remove(id));
+    }
+
+    public void invalidateProperty(UUID propertyId) {
+        afterCommit(() -> {
+            // Counted first, a load that has not tracked its id yet sees the change and drops itself
+            propertyChanges.incrementAndGet();
+            Set<UUID> ids = bookingIdsByProperty.remove(propertyId);
+            if (ids != null) {
+                ids.forEach(responses.asMap()::remove);
+            }
+        });
+    }
+
+    private void track(UUID id, UUID propertyId, long changesBefore, CompletableFuture<CachedBooking> loaded) {
+        if (propertyId != null) {
+            bookingIdsByProperty.compute(propertyId, (key, ids) -> {
+                Set<UUID> tracked = ids != null ? ids : new HashSet<>();
+                tracked.add(id);
+                return tracked;
+            });
+        }
+        if (propertyChanges.get() != changesBefore) {
+            responses.asMap().remove(id, loaded);
+        }
+    }
+
+    private void remove(UUID id) {
+        // Does not wait for a load in progress, its entry is removed all the same
+        CompletableFuture<CachedBooking> removed = responses.asMap().remove(id);
+        if (removed != null && removed.isDone()) {
+            forget(id, removed.getNow(null));
+        }
+    }
+
+    private void forget(UUID id, CachedBooking cached) {
+        if (cached == null || cached.propertyId == null) {
+            return;
+        }
+        bookingIdsByProperty.computeIfPresent(cached.propertyId, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private CachedBooking load(UUID id, Function<UUID, Booking> loader) {
+        Booking booking = loader.apply(id);
+        Property property = booking.getProperty();
+        return property != null
+                ? new CachedBooking(property.getId(), serialize(booking, property.getVersion()))
+                : new CachedBooking(null, serialize(booking, NO_PROPERTY_VERSION));
+    }
+
+    private SerializedBooking serialize(Booking booking, Long propertyVersion) {
+        try {
+            return new SerializedBooking(booking.getVersion(), propertyVersion,
+                    objectMapper.writeValueAsBytes(bookingMapper.toBookingDTO(booking)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize booking " + booking.getId(), e);
+        }
+    }
+
+    // The response and the property it shows, to find the entry again when the property changes
+    private static final class CachedBooking {
+        private final UUID propertyId;
+        private final SerializedBooking response;
+
+        private CachedBooking(UUID propertyId, SerializedBooking response) {
+            this.propertyId = propertyId;
+            this.response = response;
+        }
+    }
+}
@@ -1,23 +1,43 @@
 package com.example.bookingtechtest.service;
 
+import com.example.bookingtechtest.availability.PropertyAvailabilityIndex;
+import com.example.bookingtechtest.availability.PropertyLockManager;
 import com.example.bookingtechtest.dto.BookingDTO;
-import com.example.bookingtechtest.dto.PropertyDTO;
 import com.example.bookingtechtest.entity.Booking;
 import com.example.bookingtechtest.entity.Property;
 import com.example.bookingtechtest.enums.BookingStatus;
+import com.example.bookingtechtest.exception.OverlapedBookingException;
+import com.example.bookingtechtest.exception.PreconditionFailedException;
 import com.example.bookingtechtest.exception.ResourceNotFoundException;
+import com.example.bookingtechtest.mapper.BookingMapper;
 import com.example.bookingtechtest.repository.BookingRepository;
 import com.example.bookingtechtest.repository.PropertyRepository;
+import com.example.bookingtechtest.request.BulkCreateBookingRequest;
 import com.example.bookingtechtest.request.CreateBookingRequest;
 import com.example.bookingtechtest.request.UpdateBookingRequest;
+import com.example.bookingtechtest.response.BulkBookingResult;
+import com.example.bookingtechtest.response.BulkCreateBookingResponse;
 import com.example.bookingtechtest.response.CreateBookingResponse;
+import com.example.bookingtechtest.response.SerializedBooking;
+import com.example.bookingtechtest.response.UpdatedBooking;
 import com.example.bookingtechtest.validator.PropertyAvailabilityValidator;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 @Service
@@ -25,27 +45,48 @@ import java.util.UUID;
 public class BookingService {
     private final BookingRepository bookingRepository;
     private final PropertyRepository propertyRepository;
-    private ModelMapper modelMapper;
+    private final BookingMapper bookingMapper;
     private PropertyAvailabilityValidator propertyAvailabilityValidator;
+    private final PropertyAvailabilityIndex propertyAvailabilityIndex;
+    private final PropertyLockManager propertyLockManager;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingResponseCache bookingResponseCache;
+    private final IdempotencyStore idempotencyStore;
 
     public BookingService(BookingRepository bookingRepository,
-                          ModelMapper modelMapper, PropertyRepository propertyRepository,
-                          PropertyAvailabilityValidator propertyAvailabilityValidator) {
+                          BookingMapper bookingMapper, PropertyRepository propertyRepository,
+                          PropertyAvailabilityValidator propertyAvailabilityValidator,
+                          PropertyAvailabilityIndex propertyAvailabilityIndex,
+                          PropertyLockManager propertyLockManager,
+                          OptimisticLockRetry optimisticLockRetry,
+                          TransactionTemplate transactionTemplate,
+                          BookingResponseCache bookingResponseCache,
+                          IdempotencyStore idempotencyStore) {
         this.bookingRepository = bookingRepository;
-        this.modelMapper = modelMapper;
+        this.bookingMapper = bookingMapper;
         this.propertyAvailabilityValidator = propertyAvailabilityValidator;
         this.propertyRepository = propertyRepository;
+        this.propertyAvailabilityIndex = propertyAvailabilityIndex;
+        this.propertyLockManager = propertyLockManager;
+        this.optimisticLockRetry = optimisticLockRetry;
+        this.transactionTemplate = transactionTemplate;
+        this.bookingResponseCache = bookingResponseCache;
+        this.idempotencyStore = idempotencyStore;
     }
 
     public BookingDTO getBookingById(UUID id) {
-        Booking booking = bookingRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Booking not found with id: " + id));
-        BookingDTO bookingDTO = modelMapper.map(booking, BookingDTO.class);
-        bookingDTO.setGuestName(booking.getGuestName());
-        bookingDTO.setGuestLast4Ssn(booking.getGuestLast4Ssn());
-        bookingDTO.setProperty(modelMapper.map(booking.getProperty(), PropertyDTO.class));
+        return bookingMapper.toBookingDTO(getBookingWithProperty(id));
+    }
 
-        return bookingDTO;
+    // The JSON of getBookingById and its version, served from the cache when the booking has not changed since
+    public SerializedBooking getSerializedBookingById(UUID id) {
+        return bookingResponseCache.get(id, this::getBookingWithProperty);
+    }
+
+    // A repeated idempotency key gets the response of the first request, without checking availability again
+    public CreateBookingResponse createBooking(CreateBookingRequest request, String idempotencyKey) {
+        return idempotencyStore.execute("createBooking", idempotencyKey, request, () -> createBooking(request));
     }
 
     public CreateBookingResponse createBooking(CreateBookingRequest request) {
@@ -57,58 +98,157 @@ public class BookingService {
                     return new ResourceNotFoundException("Property not found with id: " + request.getPropertyId());
                 });
 
-        Booking booking = new Booking();
-        booking.setGuestName(request.getGuestName());
-        booking.setGuestLast4Ssn(request.getGuestLast4Ssn());
-        booking.setStartDate(request.getStartDate());
-        booking.setEndDate(request.getEndDate());
-        booking.setStatus(BookingStatus.BOOKING_CREATED.getName());
-        booking.setCreated_at(LocalDateTime.now());
-        booking.setProperty(property);
+        Booking booking = newBooking(request, property);
 
-        propertyAvailabilityValidator.validatePropertyAvailability(request.getStartDate(),request.getEndDate(), property);
+        // The check and the save must not interleave with another write for the same property
+        propertyLockManager.withLock(property.getId(), () -> {
+            propertyAvailabilityValidator.validatePropertyAvailability(request.getStartDate(),request.getEndDate(), property);
 
-        bookingRepository.save(booking);
+            bookingRepository.save(booking);
+            propertyAvailabilityIndex.bookingSaved(booking);
+        });
         log.info("Booking successfully completed: {}", request);
-        return modelMapper.map(booking,CreateBookingResponse.class);
+        return bookingMapper.toCreateBookingResponse(booking);
     }
 
-    public BookingDTO updateBooking(UUID id, UpdateBookingRequest updatedBooking) {
-        log.info("Attempting to update booking : {}", updatedBooking);
-        Booking existingBooking = getBooking(id);
-        Property property = existingBooking.getProperty();
+    public BulkCreateBookingResponse createBookings(BulkCreateBookingRequest request) {
+        List<CreateBookingRequest> bookings = request.getBookings();
+        log.info("Attempt to create {} bookings in bulk", bookings.size());
 
-        if(existingBooking.getStatus().equals(BookingStatus.BOOKING_CANCELED.getName())){
-            log.error("This booking is canceled and cannot be updated: {}", id);
-            throw new IllegalArgumentException("This booking is canceled and cannot be updated");
+        // Each property is loaded, locked and written once for all of its bookings
+        Map<UUID, List<Integer>> indexesByProperty = new LinkedHashMap<>();
+        for (int i = 0; i < bookings.size(); i++) {
+            indexesByProperty.computeIfAbsent(bookings.get(i).getPropertyId(), id -> new ArrayList<>()).add(i);
         }
+        Map<UUID, Property> properties = propertyRepository.findAllById(indexesByProperty.keySet()).stream()
+                .collect(Collectors.toMap(Property::getId, Function.identity()));
 
-        boolean isPropertyAvailable = propertyAvailabilityValidator.validatePropertyAvailability(updatedBooking.getStartDate(), updatedBooking.getEndDate(), property);
+        BulkBookingResult[] results = new BulkBookingResult[bookings.size()];
+        indexesByProperty.forEach((propertyId, indexes) -> {
+            Property property = properties.get(propertyId);
+            if (property == null) {
+                log.error("An error occurred. Bookings can't be created because the property was not found with id: {}", propertyId);
+                indexes.forEach(i -> results[i] = rejected(i, "Property not found with id: " + propertyId));
+                return;
+            }
+            propertyLockManager.withLock(propertyId, () -> createBookingsForProperty(property, indexes, bookings, results));
+        });
 
-        // Update the existing booking details with the new details
-        if(isPropertyAvailable){
-            existingBooking.setStartDate(updatedBooking.getStartDate());
-            existingBooking.setEndDate(updatedBooking.getEndDate());
-            existingBooking.setGuestName(updatedBooking.getGuestName());
-            existingBooking.setGuestLast4Ssn(updatedBooking.getGuestLast4Ssn());
-            existingBooking.setLast_updated_at(LocalDateTime.now());
+        int created = (int) Arrays.stream(results).filter(BulkBookingResult::isCreated).count();
+        log.info("Bulk booking completed: {} created, {} rejected", created, results.length - created);
+        return BulkCreateBookingResponse.builder()
+                .created(created)
+                .rejected(results.length - created)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    private void createBookingsForProperty(Property property, List<Integer> indexes,
+                                           List<CreateBookingRequest> bookings, BulkBookingResult[] results) {
+        // Bookings accepted so far in this batch, by start date. They never overlap each other.
+        TreeMap<LocalDate, LocalDate> acceptedRanges = new TreeMap<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        List<Booking> acceptedBookings = new ArrayList<>();
+
+        for (Integer i : indexes) {
+            CreateBookingRequest request = bookings.get(i);
+            try {
+                propertyAvailabilityValidator.validatePropertyAvailability(request.getStartDate(), request.getEndDate(), property);
+                Map.Entry<LocalDate, LocalDate> previous = acceptedRanges.floorEntry(request.getEndDate());
+                if (previous != null && !previous.getValue().isBefore(request.getStartDate())) {
+                    throw new OverlapedBookingException("This booking overlaps another booking of the same request.");
+                }
+            } catch (OverlapedBookingException | IllegalArgumentException e) {
+                results[i] = rejected(i, e.getMessage());
+                continue;
+            }
+            acceptedRanges.put(request.getStartDate(), request.getEndDate());
+            acceptedIndexes.add(i);
+            acceptedBookings.add(newBooking(request, property));
+        }
+        if (acceptedBookings.isEmpty()) {
+            return;
+        }
+
+        try {
+            // One transaction per property, the inserts are sent in JDBC batches
+            transactionTemplate.executeWithoutResult(status -> {
+                bookingRepository.saveAll(acceptedBookings);
+                acceptedBookings.forEach(propertyAvailabilityIndex::bookingSaved);
+            });
+        } catch (DataAccessException e) {
+            log.error("An error occurred while saving the bookings of property {}", property.getId(), e);
+            acceptedIndexes.forEach(i -> results[i] = rejected(i, "The booking could not be saved. Please try again"));
+            return;
+        }
+        for (int j = 0; j < acceptedIndexes.size(); j++) {
+            int i = acceptedIndexes.get(j);
+            results[i] = BulkBookingResult.builder()
+                    .index(i)
+                    .created(true)
+                    .booking(bookingMapper.toCreateBookingResponse(acceptedBookings.get(j)))
+                    .build();
         }
+    }
+
+    /**
+     * Updates the booking, only while its version is one of {@code expectedVersions} when given,
+     * so a client cannot overwrite a change it has not seen.
+     */
+    public UpdatedBooking updateBooking(UUID id, UpdateBookingRequest updatedBooking, Collection<Long> expectedVersions) {
+        log.info("Attempting to update booking : {}", updatedBooking);
+        UpdatedBooking updated = optimisticLockRetry.execute("updateBooking", () -> {
+            // The response shows the property
+            Booking existingBooking = getBookingWithProperty(id);
+            Property property = existingBooking.getProperty();
+
+            // Checked again on every attempt, a retry means someone else changed the booking
+            if (expectedVersions != null && !expectedVersions.contains(existingBooking.getVersion())) {
+                log.error("The booking {} is at version {}, not one of {}", id, existingBooking.getVersion(), expectedVersions);
+                throw new PreconditionFailedException("The booking was modified since it was read");
+            }
+
+            if(existingBooking.getStatus() == BookingStatus.BOOKING_CANCELED){
+                log.error("This booking is canceled and cannot be updated: {}", id);
+                throw new IllegalArgumentException("This booking is canceled and cannot be updated");
+            }
+
+            return propertyLockManager.withLock(requiredPropertyIdOf(existingBooking, "updated"), () -> {
+                // Throws when the dates are taken, its own current dates do not count. Nothing is saved then
+                propertyAvailabilityValidator.validatePropertyAvailability(updatedBooking.getStartDate(), updatedBooking.getEndDate(), property, id);
 
-        bookingRepository.save(existingBooking);
+                // Update the existing booking details with the new details
+                existingBooking.setStartDate(updatedBooking.getStartDate());
+                existingBooking.setEndDate(updatedBooking.getEndDate());
+                existingBooking.setGuestName(updatedBooking.getGuestName());
+                existingBooking.setGuestLast4Ssn(updatedBooking.getGuestLast4Ssn());
+                existingBooking.setLast_updated_at(LocalDateTime.now());
+
+                // The saved copy carries the new version, the read one keeps the old
+                Booking savedBooking = bookingRepository.save(existingBooking);
+                propertyAvailabilityIndex.bookingSaved(existingBooking);
+                bookingResponseCache.invalidate(id);
+                return new UpdatedBooking(bookingMapper.toBookingDTO(existingBooking),
+                        savedBooking.getVersion(), property.getVersion());
+            });
+        });
         log.info("Booking successfully updated: {}", updatedBooking);
 
-        return modelMapper.map(existingBooking,BookingDTO.class);
+        return updated;
     }
 
     public void cancelBooking(UUID id) {
         log.info("Attempting to cancel booking : {}", id);
-        Booking existingBooking = getBooking(id);
-
-        existingBooking.setStatus(BookingStatus.BOOKING_CANCELED.getName());
-        existingBooking.setLast_updated_at(LocalDateTime.now());
-        existingBooking.setProperty(existingBooking.getProperty());
-
-        bookingRepository.save(existingBooking);
+        optimisticLockRetry.execute("cancelBooking", () -> {
+            Booking existingBooking = getBooking(id);
+            propertyLockManager.withLock(requiredPropertyIdOf(existingBooking, "canceled"), () -> {
+                existingBooking.setStatus(BookingStatus.BOOKING_CANCELED);
+                existingBooking.setLast_updated_at(LocalDateTime.now());
+                bookingRepository.save(existingBooking);
+                propertyAvailabilityIndex.bookingSaved(existingBooking);
+                bookingResponseCache.invalidate(id);
+            });
+        });
         log.info("Booking successfully canceled: {}", id);
     }
 
@@ -116,20 +256,37 @@ public class BookingService {
 
     public void rebookCancelledBooking(UUID id) {
         log.info("Attempting to rebook booking : {}", id);
-        Booking existingBookingToBeUpdated = getBooking(id);
+        optimisticLockRetry.execute("rebookCancelledBooking", () -> {
+            Booking existingBookingToBeUpdated = getBooking(id);
 
-        if(!existingBookingToBeUpdated.getStatus().equals(BookingStatus.BOOKING_CANCELED.getName())){
-            log.error("The booking needs to be canceled first: {}", id);
-            throw new IllegalArgumentException("The booking needs to have status canceled to be rebooked.");
-        }
+            if(existingBookingToBeUpdated.getStatus() != BookingStatus.BOOKING_CANCELED){
+                log.error("The booking needs to be canceled first: {}", id);
+                throw new IllegalArgumentException("The booking needs to have status canceled to be rebooked.");
+            }
 
-        existingBookingToBeUpdated.setStatus(BookingStatus.BOOKING_REBOOKED.getName());
-        bookingRepository.save(existingBookingToBeUpdated);
+            propertyLockManager.withLock(requiredPropertyIdOf(existingBookingToBeUpdated, "rebooked"), () -> {
+                // Its dates were released on cancel and may have been taken since
+                propertyAvailabilityValidator.validatePropertyAvailability(existingBookingToBeUpdated.getStartDate(),
+                        existingBookingToBeUpdated.getEndDate(), existingBookingToBeUpdated.getProperty());
+
+                existingBookingToBeUpdated.setStatus(BookingStatus.BOOKING_REBOOKED);
+                existingBookingToBeUpdated.setLast_updated_at(LocalDateTime.now());
+                bookingRepository.save(existingBookingToBeUpdated);
+                propertyAvailabilityIndex.bookingSaved(existingBookingToBeUpdated);
+                bookingResponseCache.invalidate(id);
+            });
+        });
     }
 
     public void deleteBooking(UUID id) {
-        Booking existingBooking = getBooking(id);
-        bookingRepository.delete(existingBooking);
+        optimisticLockRetry.execute("deleteBooking", () -> {
+            Booking existingBooking = getBooking(id);
+            propertyLockManager.withLock(requiredPropertyIdOf(existingBooking, "deleted"), () -> {
+                bookingRepository.delete(existingBooking);
+                propertyAvailabilityIndex.bookingDeleted(existingBooking);
+                bookingResponseCache.invalidate(id);
+            });
+        });
     }
 
     public Booking getBooking(UUID id) {
@@ -138,6 +295,45 @@ public class BookingService {
 
         return booking;
     }
+
+    private Booking getBookingWithProperty(UUID id) {
+        return bookingRepository.findWithPropertyById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking not found with id: " + id));
+    }
+
+    private static Booking newBooking(CreateBookingRequest request, Property property) {
+        Booking booking = new Booking();
+        booking.setGuestName(request.getGuestName());
+        booking.setGuestLast4Ssn(request.getGuestLast4Ssn());
+        booking.setStartDate(request.getStartDate());
+        booking.setEndDate(request.getEndDate());
+        booking.setStatus(BookingStatus.BOOKING_CREATED);
+        booking.setCreated_at(LocalDateTime.now());
+        booking.setProperty(property);
+        return booking;
+    }
+
+    private static BulkBookingResult rejected(int index, String error) {
+        return BulkBookingResult.builder()
+                .index(index)
+                .created(false)
+                .error(error)
+                .build();
+    }
+
+    private static UUID propertyIdOf(Booking booking) {
+        return booking.getProperty() != null ? booking.getProperty().getId() : null;
+    }
+
+    // The lock and the availability index both need the property, a row without one is rejected up front
+    private static UUID requiredPropertyIdOf(Booking booking, String action) {
+        UUID propertyId = propertyIdOf(booking);
+        if (propertyId == null) {
+            log.error("This booking has no property and cannot be {}: {}", action, booking.getId());
+            throw new IllegalArgumentException("The booking has no property and cannot be " + action);
+        }
+        return propertyId;
+    }
 }
 
 
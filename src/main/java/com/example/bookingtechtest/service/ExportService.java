@@ -0,0 +1,184 @@
+package com.example.bookingtechtest.service;
+
+import com.example.bookingtechtest.csv.CsvWriter;
+import com.example.bookingtechtest.enums.BookingStatus;
+import com.example.bookingtechtest.enums.ExportFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams whole tables as NDJSON or CSV. Rows are read through a forward-only cursor with a fixed
+ * fetch size and written to the output as they are read, without mapping them to entities or
+ * holding on to them, so the heap stays flat however many rows are exported.
+ */
+@Slf4j
+@Service
+public class ExportService {
+    static final List<String> BOOKING_COLUMNS = List.of("id", "propertyId", "startDate", "endDate", "status",
+            "guestName", "guestLast4Ssn", "created_at", "last_updated_at", "version");
+    static final List<String> BLOCK_COLUMNS = List.of("id", "propertyId", "startDate", "endDate",
+            "created_at", "last_updated_at", "version");
+    private static final String BOOKINGS_QUERY = "SELECT id, property_id, start_date, end_date, status, guest_name, " +
+            "guest_last4ssn, created_at, last_updated_at, version FROM tb_bookings";
+    private static final String BLOCKS_QUERY = "SELECT id, property_id, start_date, end_date, created_at, last_updated_at, " +
+            "version FROM tb_block";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public ExportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                         @Value("${booking.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+        // Some drivers only fetch by batches inside a transaction, it also gives the export a consistent snapshot
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    public long exportBookings(ExportFormat format, OutputStream out) {
+        return export("bookings", format, out, BOOKINGS_QUERY, BOOKING_COLUMNS, (rs, values) -> {
+            values[0] = rs.getString("id");
+            values[1] = rs.getString("property_id");
+            values[2] = text(rs.getObject("start_date", LocalDate.class));
+            values[3] = text(rs.getObject("end_date", LocalDate.class));
+            values[4] = BookingStatus.fromId(rs.getInt("status")).getName();
+            values[5] = rs.getString("guest_name");
+            values[6] = rs.getString("guest_last4ssn");
+            values[7] = text(rs.getObject("created_at", LocalDateTime.class));
+            values[8] = text(rs.getObject("last_updated_at", LocalDateTime.class));
+            values[9] = rs.getObject("version", Long.class);
+        });
+    }
+
+    public long exportBlocks(ExportFormat format, OutputStream out) {
+        return export("blocks", format, out, BLOCKS_QUERY, BLOCK_COLUMNS, (rs, values) -> {
+            values[0] = rs.getString("id");
+            values[1] = rs.getString("property_id");
+            values[2] = text(rs.getObject("start_date", LocalDate.class));
+            values[3] = text(rs.getObject("end_date", LocalDate.class));
+            values[4] = text(rs.getObject("created_at", LocalDateTime.class));
+            values[5] = text(rs.getObject("last_updated_at", LocalDateTime.class));
+            values[6] = rs.getObject("version", Long.class);
+        });
+    }
+
+    private long export(String name, ExportFormat format, OutputStream out, String query, List<String> columns, RowReader rowReader) {
+        log.info("Exporting {} as {}", name, format);
+        long start = System.nanoTime();
+        try {
+            RowWriter rowWriter = format == ExportFormat.CSV ? new CsvRowWriter(out, columns) : new NdjsonRowWriter(objectMapper, out, columns);
+            // One array reused for every row
+            Object[] values = new Object[columns.size()];
+            long[] rows = new long[1];
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> cursor(connection, query), rs -> {
+                rowReader.read(rs, values);
+                try {
+                    rowWriter.write(values);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            }));
+            rowWriter.finish();
+            log.info("Exported {} {} as {} in {} ms", rows[0], name, format, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return rows[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The fetch size is set on the statement, the shared template keeps its own for every other query
+    private PreparedStatement cursor(Connection connection, String query) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        return statement;
+    }
+
+    private static String text(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private interface RowReader {
+        void read(ResultSet rs, Object[] values) throws SQLException;
+    }
+
+    interface RowWriter {
+        void write(Object[] values) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    // One JSON object per line, written through the generator without building a tree
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private final List<String> columns;
+
+        NdjsonRowWriter(ObjectMapper objectMapper, OutputStream out, List<String> columns) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+            this.columns = columns;
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value == null) {
+                    generator.writeNullField(columns.get(i));
+                } else if (value instanceof Long number) {
+                    generator.writeNumberField(columns.get(i), number);
+                } else {
+                    generator.writeStringField(columns.get(i), value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final CsvWriter csv;
+
+        CsvRowWriter(OutputStream out, List<String> columns) throws IOException {
+            this.csv = new CsvWriter(out, columns);
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            csv.write(values);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            csv.finish();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.bookingtechtest.service;
+
+import com.example.bookingtechtest.availability.Hold;
+import com.example.bookingtechtest.availability.PropertyAvailabilityIndex;
+import com.example.bookingtechtest.availability.PropertyLockManager;
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.entity.UuidV7Generator;
+import com.example.bookingtechtest.exception.HoldLimitExceededException;
+import com.example.bookingtechtest.exception.ResourceNotFoundException;
+import com.example.bookingtechtest.repository.PropertyRepository;
+import com.example.bookingtechtest.request.CreateBookingRequest;
+import com.example.bookingtechtest.response.CreateBookingResponse;
+import com.example.bookingtechtest.response.HoldResponse;
+import com.example.bookingtechtest.validator.PropertyAvailabilityValidator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds reserve a property's dates for a guest for a limited time, without writing a booking.
+ * A held range makes the dates unavailable to other bookings until the hold is confirmed into
+ * a booking, released, or expires.
+ * <p>
+ * Each hold expires at its own {@link Hold#getExpiresAt()}. Caffeine keeps variable expiry in a
+ * timer wheel and its scheduler reclaims expired holds without scanning the others. Holds
+ * only live in this instance's memory, like the availability index they are kept in.
+ * <p>
+ * At most {@code booking.holds.max-size} holds are live at a time. Past that new holds are
+ * rejected, a granted hold is never evicted to make room before it expires.
+ */
+@Slf4j
+@Service
+public class HoldService {
+    private final PropertyRepository propertyRepository;
+    private final BookingService bookingService;
+    private final PropertyAvailabilityValidator propertyAvailabilityValidator;
+    private final PropertyAvailabilityIndex propertyAvailabilityIndex;
+    private final PropertyLockManager propertyLockManager;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final long maxSize;
+    private final Clock clock;
+    // Holds placed and not yet confirmed, released or expired. A hold being confirmed keeps its slot
+    private final AtomicLong liveHolds = new AtomicLong();
+    private final Cache<UUID, Hold> holds;
+
+    @Autowired
+    public HoldService(PropertyRepository propertyRepository, BookingService bookingService,
+                       PropertyAvailabilityValidator propertyAvailabilityValidator,
+                       PropertyAvailabilityIndex propertyAvailabilityIndex, PropertyLockManager propertyLockManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${booking.holds.ttl-seconds:600}") long ttlSeconds,
+                       @Value("${booking.holds.max-size:100000}") long maxSize) {
+        this(propertyRepository, bookingService, propertyAvailabilityValidator, propertyAvailabilityIndex,
+                propertyLockManager, meterRegistry, ttlSeconds, maxSize, Clock.systemUTC(), Ticker.systemTicker());
+    }
+
+    // The clock sets expiresAt and the ticker drives Caffeine's expiry, tests move both forward together
+    HoldService(PropertyRepository propertyRepository, BookingService bookingService,
+                PropertyAvailabilityValidator propertyAvailabilityValidator,
+                PropertyAvailabilityIndex propertyAvailabilityIndex, PropertyLockManager propertyLockManager,
+                MeterRegistry meterRegistry, long ttlSeconds, long maxSize, Clock clock, Ticker ticker) {
+        this.propertyRepository = propertyRepository;
+        this.bookingService = bookingService;
+        this.propertyAvailabilityValidator = propertyAvailabilityValidator;
+        this.propertyAvailabilityIndex = propertyAvailabilityIndex;
+        this.propertyLockManager = propertyLockManager;
+        this.meterRegistry = meterRegistry;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.maxSize = maxSize;
+        this.clock = clock;
+        // Not bounded by size, which would evict live holds without telling their guests
+        this.holds = Caffeine.newBuilder()
+                .expireAfter(new HoldExpiry(clock))
+                .ticker(ticker)
+                .scheduler(Scheduler.systemScheduler())
+                // Called as part of the expiry, so the dates are free as soon as the hold is gone
+                .evictionListener(this::expired)
+                .build();
+    }
+
+    public HoldResponse createHold(CreateBookingRequest request) {
+        log.info("Attempt to hold dates: {}", request);
+        Property property = propertyRepository.findById(request.getPropertyId())
+                .orElseThrow(() -> {
+                    log.error("An error occurred. Dates can't be held because the property was not found with id: {}", request.getPropertyId());
+                    return new ResourceNotFoundException("Property not found with id: " + request.getPropertyId());
+                });
+
+        Hold hold = new Hold(UuidV7Generator.generate(), property.getId(), request.getStartDate(), request.getEndDate(),
+                request.getGuestName(), request.getGuestLast4Ssn(), clock.instant().plus(ttl));
+        propertyLockManager.withLock(property.getId(), () -> {
+            propertyAvailabilityValidator.validatePropertyAvailability(hold.getStartDate(), hold.getEndDate(), property);
+            reserveSlot();
+            place(hold);
+        });
+        count("placed");
+        log.info("Dates held until {}: {}", hold.getExpiresAt(), hold.getId());
+        return toHoldResponse(hold);
+    }
+
+    public HoldResponse getHold(UUID id) {
+        return toHoldResponse(findHold(id));
+    }
+
+    /**
+     * Turns the hold into a booking. The hold is taken and the booking saved under the property
+     * lock, so no other booking can get in between. If the booking fails the dates stay held.
+     */
+    public CreateBookingResponse confirmHold(UUID id) {
+        Hold hold = findHold(id);
+        // Read before taking the lock, like createBooking, which then finds it in the persistence context
+        propertyRepository.findById(hold.getPropertyId());
+
+        return propertyLockManager.withLock(hold.getPropertyId(), () -> {
+            if (holds.asMap().remove(id) == null) {
+                log.error("The hold expired before it was confirmed: {}", id);
+                throw new ResourceNotFoundException("Hold not found with id: " + id);
+            }
+            propertyAvailabilityIndex.holdReleased(hold);
+            try {
+                CreateBookingResponse booking = bookingService.createBooking(toCreateBookingRequest(hold));
+                liveHolds.decrementAndGet();
+                count("confirmed");
+                return booking;
+            } catch (RuntimeException e) {
+                // Restored with its original expiry, unless that has passed while booking
+                if (hold.getExpiresAt().isAfter(clock.instant())) {
+                    place(hold);
+                } else {
+                    liveHolds.decrementAndGet();
+                    count("expired");
+                    log.info("Hold {} expired while it was confirmed, its dates are available again", id);
+                }
+                throw e;
+            }
+        });
+    }
+
+    public void releaseHold(UUID id) {
+        Hold hold = holds.asMap().remove(id);
+        if (hold == null) {
+            throw new ResourceNotFoundException("Hold not found with id: " + id);
+        }
+        propertyAvailabilityIndex.holdReleased(hold);
+        liveHolds.decrementAndGet();
+        count("released");
+        log.info("Hold released: {}", id);
+    }
+
+    private Hold findHold(UUID id) {
+        Hold hold = holds.getIfPresent(id);
+        if (hold == null) {
+            log.error("Hold not found or expired: {}", id);
+            throw new ResourceNotFoundException("Hold not found with id: " + id);
+        }
+        return hold;
+    }
+
+    // Indexed before it is cached: a hold that expires right away is removed from the index by the
+    // removal listener, which could otherwise run before holdPlaced and leave the dates held for good
+    private void place(Hold hold) {
+        propertyAvailabilityIndex.holdPlaced(hold);
+        holds.put(hold.getId(), hold);
+    }
+
+    private void reserveSlot() {
+        if (liveHolds.incrementAndGet() > maxSize) {
+            liveHolds.decrementAndGet();
+            count("rejected");
+            log.error("Hold rejected, {} holds are already live", maxSize);
+            throw new HoldLimitExceededException("Too many dates are held at the moment. Please try again later");
+        }
+    }
+
+    // Confirmed and released holds are removed explicitly and already left the index
+    private void expired(UUID id, Hold hold, RemovalCause cause) {
+        if (hold != null && cause == RemovalCause.EXPIRED) {
+            propertyAvailabilityIndex.holdReleased(hold);
+            liveHolds.decrementAndGet();
+            count("expired");
+            log.info("Hold {} expired, its dates are available again", id);
+        }
+    }
+
+    // Reclaims the expired holds now, rather than when the scheduler next runs
+    void cleanUp() {
+        holds.cleanUp();
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("booking.holds", "outcome", outcome).increment();
+    }
+
+    private static CreateBookingRequest toCreateBookingRequest(Hold hold) {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setPropertyId(hold.getPropertyId());
+        request.setStartDate(hold.getStartDate());
+        request.setEndDate(hold.getEndDate());
+        request.setGuestName(hold.getGuestName());
+        request.setGuestLast4Ssn(hold.getGuestLast4Ssn());
+        return request;
+    }
+
+    private static HoldResponse toHoldResponse(Hold hold) {
+        return HoldResponse.builder()
+                .id(hold.getId())
+                .propertyId(hold.getPropertyId())
+                .startDate(hold.getStartDate().toString())
+                .endDate(hold.getEndDate().toString())
+                .expiresAt(hold.getExpiresAt().toString())
+                .build();
+    }
+
+    // Every hold lives until its own expiresAt, which a restored hold keeps
+    private static final class HoldExpiry implements Expiry<UUID, Hold> {
+        private final Clock clock;
+
+        private HoldExpiry(Clock clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public long expireAfterCreate(UUID id, Hold hold, long currentTime) {
+            return Math.max(0, Duration.between(clock.instant(), hold.getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(UUID id, Hold hold, long currentTime, long currentDuration) {
+            return expireAfterCreate(id, hold, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(UUID id, Hold hold, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
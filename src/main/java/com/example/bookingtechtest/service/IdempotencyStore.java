@@ -0,0 +1,120 @@
+package com.example.bookingtechtest.service;
+
+import com.example.bookingtechtest.exception.IdempotencyKeyReusedException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Responses of create requests by the {@code Idempotency-Key} their client sent, bounded in
+ * size and age, so a client retrying after a timeout gets the original response back instead
+ * of creating a duplicate or being told its own booking overlaps.
+ * <p>
+ * Only successful responses are kept, a request that failed runs again when it is retried.
+ * Duplicates that arrive while the first request is still running wait for its outcome, and run
+ * again one at a time when it failed, each getting its own error. Each key remembers a SHA-256
+ * digest of the request it was first used with, reusing it for a different request is rejected.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final AsyncCache<String, Outcome> outcomes;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyStore(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                            @Value("${booking.idempotency.max-size:100000}") long maxSize,
+                            @Value("${booking.idempotency.ttl-seconds:86400}") long ttlSeconds) {
+        this.objectMapper = objectMapper;
+        this.outcomes = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+        // cache.gets (hit/miss), cache.puts, cache.evictions and cache.size, tagged cache=idempotency
+        CaffeineCacheMetrics.monitor(meterRegistry, outcomes, "idempotency");
+    }
+
+    /**
+     * Runs {@code action} once per {@code operation} and {@code key}, and returns its response
+     * to every later call with the same key. Without a key the action always runs.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, String key, Object request, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("The Idempotency-Key header must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String storeKey = operation + ":" + key;
+        byte[] fingerprint = fingerprint(request);
+
+        while (true) {
+            CompletableFuture<Outcome> running = new CompletableFuture<>();
+            CompletableFuture<Outcome> outcome = outcomes.get(storeKey, (k, executor) -> running);
+            if (outcome == running) {
+                try {
+                    T response = action.get();
+                    running.complete(new Outcome(fingerprint, response, false));
+                    return response;
+                } finally {
+                    if (!running.isDone()) {
+                        // Forgotten before the waiting duplicates are released, so a retry runs again
+                        outcomes.asMap().remove(storeKey, running);
+                        running.complete(new Outcome(fingerprint, null, true));
+                    }
+                }
+            }
+
+            Outcome done = outcome.join();
+            if (done.isFailed()) {
+                // The key is free again. Running the request here, rather than rethrowing the first request's
+                // exception, gives this caller an error of its own
+                log.info("The request of {} for Idempotency-Key {} that this one waited for failed, running it again", operation, key);
+                continue;
+            }
+            if (!MessageDigest.isEqual(done.getFingerprint(), fingerprint)) {
+                log.error("Idempotency-Key {} of {} was reused for a different request", key, operation);
+                throw new IdempotencyKeyReusedException("The Idempotency-Key was already used for a different request");
+            }
+            log.info("Replaying the response of {} for Idempotency-Key {}", operation, key);
+            return (T) done.getResponse();
+        }
+    }
+
+    // A 32-bit hash would let two different requests collide, the digest never does in practice
+    private byte[] fingerprint(Object request) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize request", e);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class Outcome {
+        private final byte[] fingerprint;
+        private final Object response;
+        private final boolean failed;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.bookingtechtest.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a read-modify-write again when it loses an optimistic locking race on a versioned
+ * entity. Each attempt must re-read what it modifies. Between attempts it sleeps a random
+ * time up to an exponentially growing bound, and gives up after a fixed number of attempts.
+ */
+@Slf4j
+@Component
+public class OptimisticLockRetry {
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticLockRetry(MeterRegistry meterRegistry,
+                               @Value("${booking.optimistic-lock.max-attempts:3}") int maxAttempts,
+                               @Value("${booking.optimistic-lock.initial-backoff-ms:10}") long initialBackoffMillis,
+                               @Value("${booking.optimistic-lock.max-backoff-ms:200}") long maxBackoffMillis) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                counter("booking.optimistic_lock.conflicts", operation).increment();
+                if (attempt >= maxAttempts) {
+                    counter("booking.optimistic_lock.exhausted", operation).increment();
+                    log.error("Giving up {} after {} concurrent modification conflicts", operation, attempt);
+                    throw e;
+                }
+                counter("booking.optimistic_lock.retries", operation).increment();
+                log.warn("Concurrent modification on {}, retrying (attempt {} of {})", operation, attempt + 1, maxAttempts);
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    public void execute(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void backOff(int attempt, OptimisticLockingFailureException conflict) {
+        long bound = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        if (bound <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return meterRegistry.counter(name, "operation", operation);
+    }
+}
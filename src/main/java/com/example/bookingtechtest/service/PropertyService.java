@@ -0,0 +1,183 @@
+package com.example.bookingtechtest.service;
+
+import com.example.bookingtechtest.availability.AvailabilityCalendar;
+import com.example.bookingtechtest.availability.PropertyAvailabilityIndex;
+import com.example.bookingtechtest.dto.BookingSummaryDTO;
+import com.example.bookingtechtest.dto.CalendarDayDTO;
+import com.example.bookingtechtest.dto.PropertyDTO;
+import com.example.bookingtechtest.enums.BookingStatus;
+import com.example.bookingtechtest.exception.ResourceNotFoundException;
+import com.example.bookingtechtest.repository.BookingRepository;
+import com.example.bookingtechtest.repository.PropertyRepository;
+import com.example.bookingtechtest.response.AvailablePropertiesResponse;
+import com.example.bookingtechtest.response.PropertyBookingsResponse;
+import com.example.bookingtechtest.response.PropertyCalendarResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class PropertyService {
+    static final int MAX_PAGE_SIZE = 500;
+    static final int MAX_CALENDAR_MONTHS = 24;
+    // Bounds of an open date window, and the position before the first booking of a listing
+    private static final LocalDate FIRST_DAY = LocalDate.of(1, 1, 1);
+    private static final LocalDate LAST_DAY = LocalDate.of(9999, 12, 31);
+    private static final UUID NO_ID = new UUID(0, 0);
+
+    private final PropertyRepository propertyRepository;
+    private final BookingRepository bookingRepository;
+    private final PropertyAvailabilityIndex propertyAvailabilityIndex;
+
+    public PropertyService(PropertyRepository propertyRepository, BookingRepository bookingRepository,
+                           PropertyAvailabilityIndex propertyAvailabilityIndex) {
+        this.propertyRepository = propertyRepository;
+        this.bookingRepository = bookingRepository;
+        this.propertyAvailabilityIndex = propertyAvailabilityIndex;
+    }
+
+    public AvailablePropertiesResponse findAvailableProperties(LocalDate startDate, LocalDate endDate,
+                                                               List<UUID> propertyIds, int page, int size) {
+        if(startDate.isAfter(endDate)){
+            log.error("The startDate must be earlier than the endDate");
+            throw new IllegalArgumentException("The start date cannot be after the end date. Please check the dates entered");
+        }
+        if(page < 0 || size < 1 || size > MAX_PAGE_SIZE){
+            throw new IllegalArgumentException("The page must be positive and the size between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        Pageable pageable = PageRequest.of(page, size);
+        Slice<PropertyDTO> properties = propertyIds == null || propertyIds.isEmpty()
+                ? propertyRepository.findAvailableProperties(startDate, endDate, pageable)
+                : propertyRepository.findAvailablePropertiesIn(propertyIds, startDate, endDate, pageable);
+        // Holds only live in memory, where the query cannot see them. A page with held properties
+        // comes back shorter than the size, hasNext still tells whether there are more pages
+        List<PropertyDTO> available = properties.getContent().stream()
+                .filter(property -> !propertyAvailabilityIndex.hasOverlappingHold(property.getId(), startDate, endDate))
+                .toList();
+
+        return AvailablePropertiesResponse.builder()
+                .startDate(startDate.toString())
+                .endDate(endDate.toString())
+                .page(page)
+                .size(size)
+                .hasNext(properties.hasNext())
+                .properties(available)
+                .build();
+    }
+
+    /**
+     * The version {@link #getCalendar} would return, read from memory without touching the database
+     * or building the days, so revalidating an unchanged calendar stays cheap. {@code null} when the
+     * property's calendar was not read since the start.
+     */
+    public String getCalendarVersion(UUID propertyId, int months) {
+        validateMonths(months);
+        return propertyAvailabilityIndex.calendarVersion(propertyId);
+    }
+
+    public PropertyCalendarResponse getCalendar(UUID propertyId, LocalDate startDate, int months) {
+        validateMonths(months);
+        if(!propertyRepository.existsById(propertyId)){
+            log.error("Property not found with id: {}", propertyId);
+            throw new ResourceNotFoundException("Property not found with id: " + propertyId);
+        }
+
+        LocalDate endDate = startDate.plusMonths(months).minusDays(1);
+        int days = (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        AvailabilityCalendar calendar = propertyAvailabilityIndex.calendar(propertyId, startDate, days);
+
+        List<CalendarDayDTO> calendarDays = new ArrayList<>(days);
+        for (int day = 0; day < days; day++) {
+            calendarDays.add(new CalendarDayDTO(startDate.plusDays(day).toString(), calendar.status(day)));
+        }
+        return PropertyCalendarResponse.builder()
+                .propertyId(propertyId)
+                .startDate(startDate.toString())
+                .endDate(endDate.toString())
+                .version(calendar.getVersion())
+                .days(calendarDays)
+                .build();
+    }
+
+    private static void validateMonths(int months) {
+        if(months < 1 || months > MAX_CALENDAR_MONTHS){
+            throw new IllegalArgumentException("The months must be between 1 and " + MAX_CALENDAR_MONTHS);
+        }
+    }
+
+    /**
+     * Lists the bookings of a property by start date, optionally only those with the given status
+     * or overlapping the dates. Each page continues after the last booking of the previous one,
+     * which {@code cursor} points at, so a page costs the same however many bookings come before it.
+     * With a {@code startDate} the first page seeks from the longest stay before it, not from the
+     * property's first booking.
+     */
+    public PropertyBookingsResponse findBookings(UUID propertyId, BookingStatus status, LocalDate startDate,
+                                                 LocalDate endDate, String cursor, int size) {
+        if(startDate != null && endDate != null && startDate.isAfter(endDate)){
+            log.error("The startDate must be earlier than the endDate");
+            throw new IllegalArgumentException("The start date cannot be after the end date. Please check the dates entered");
+        }
+        if(size < 1 || size > MAX_PAGE_SIZE){
+            throw new IllegalArgumentException("The size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if(!propertyRepository.existsById(propertyId)){
+            log.error("Property not found with id: {}", propertyId);
+            throw new ResourceNotFoundException("Property not found with id: " + propertyId);
+        }
+
+        LocalDate afterStartDate = FIRST_DAY;
+        UUID afterId = NO_ID;
+        if (cursor != null) {
+            try {
+                String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("/", 2);
+                afterStartDate = LocalDate.parse(position[0]);
+                afterId = UUID.fromString(position[position.length - 1]);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                log.error("Invalid bookings cursor: {}", cursor);
+                throw new IllegalArgumentException("The cursor is not valid, use the nextCursor of the previous page");
+            }
+        }
+        if (startDate != null) {
+            // A booking that starts more than the longest stay before the window cannot overlap it, so the
+            // seek on (property_id, start_date, id) starts there instead of at the property's oldest booking
+            LocalDate seekFrom = startDate.minusDays(propertyAvailabilityIndex.longestStayDays(propertyId));
+            if (seekFrom.isAfter(afterStartDate)) {
+                afterStartDate = seekFrom;
+                afterId = NO_ID;
+            }
+        }
+        // One more than the page tells whether there is a next one
+        List<BookingSummaryDTO> bookings = bookingRepository.findBookingsPage(propertyId, status,
+                startDate != null ? startDate : FIRST_DAY, endDate != null ? endDate : LAST_DAY,
+                afterStartDate, afterId, Limit.of(size + 1));
+        boolean hasNext = bookings.size() > size;
+        List<BookingSummaryDTO> page = hasNext ? bookings.subList(0, size) : bookings;
+
+        return PropertyBookingsResponse.builder()
+                .propertyId(propertyId)
+                .size(size)
+                .nextCursor(hasNext ? encodeCursor(page.get(size - 1)) : null)
+                .bookings(page)
+                .build();
+    }
+
+    private static String encodeCursor(BookingSummaryDTO last) {
+        String position = last.getStartDate() + "/" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,59 +1,138 @@
 package com.example.bookingtechtest.validator;
 
-import com.example.bookingtechtest.entity.Block;
-import com.example.bookingtechtest.entity.Booking;
+import com.example.bookingtechtest.availability.PropertyAvailabilityIndex;
 import com.example.bookingtechtest.entity.Property;
 import com.example.bookingtechtest.exception.OverlapedBookingException;
 import com.example.bookingtechtest.repository.BlockRepository;
 import com.example.bookingtechtest.repository.BookingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 public class PropertyAvailabilityValidator {
+    private final PropertyAvailabilityIndex propertyAvailabilityIndex;
     private final BookingRepository bookingRepository;
     private final BlockRepository blockRepository;
+    // "index" checks the in-memory index, "database" runs an exists query for every check
+    // (for instances that do not see each other's writes)
+    private final boolean checkDatabase;
+    private final CheckTimers bookingCheckTimers;
+    private final CheckTimers blockCheckTimers;
 
-    public PropertyAvailabilityValidator(BookingRepository bookingRepository, BlockRepository blockRepository) {
+    public PropertyAvailabilityValidator(PropertyAvailabilityIndex propertyAvailabilityIndex,
+                                         BookingRepository bookingRepository, BlockRepository blockRepository,
+                                         @Value("${booking.availability.source:index}") String availabilitySource,
+                                         MeterRegistry meterRegistry) {
+        this.propertyAvailabilityIndex = propertyAvailabilityIndex;
         this.bookingRepository = bookingRepository;
         this.blockRepository = blockRepository;
+        this.checkDatabase = "database".equalsIgnoreCase(availabilitySource);
+        this.bookingCheckTimers = new CheckTimers(meterRegistry, "booking");
+        this.blockCheckTimers = new CheckTimers(meterRegistry, "block");
     }
 
     public boolean validatePropertyAvailability(LocalDate startDate, LocalDate endDate, Property property) {
-        boolean propertyAvailable = true;
-        if(startDate.isAfter(endDate)){
-            log.error("The startDate must be earlier than the endDate");
-            throw new IllegalArgumentException("The start date cannot be after the end date. Please check the dates entered");
+        return validatePropertyAvailability(startDate, endDate, property, null);
+    }
 
+    /**
+     * Checks the dates for the booking {@code excludeId}, whose own current dates do not count as
+     * an overlap, so it can be extended or moved by a few days.
+     */
+    public boolean validatePropertyAvailability(LocalDate startDate, LocalDate endDate, Property property, UUID excludeId) {
+        long startTime = System.nanoTime();
+        Timer outcome = bookingCheckTimers.invalid;
+        try {
+            validateRequest(startDate, endDate, property);
+
+            // Holds only exist in memory, they are checked with either source
+            if(hasOverlappingBooking(property.getId(), startDate, endDate, excludeId)
+                    || hasOverlappingBlock(property.getId(), startDate, endDate, null)
+                    || propertyAvailabilityIndex.hasOverlappingHold(property.getId(), startDate, endDate)){
+                outcome = bookingCheckTimers.overlap;
+                log.error("Failed to create booking. This property is already booked from: {} until {}", startDate , endDate);
+                throw new OverlapedBookingException("This property is not available for booking on the dates selected.");
+            }
+            outcome = bookingCheckTimers.available;
+            return true;
+        } finally {
+            outcome.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
         }
-        List<Booking> overlappingBookings = bookingRepository.findOverlappingBookingsForProperty(property, startDate, endDate);
-        List<Block> blocks = blockRepository.findOverlappingBlocksForProperty(property,startDate,endDate);
-        if(!overlappingBookings.isEmpty() || !blocks.isEmpty()){
-            propertyAvailable = false;
-            log.error("Failed to create booking. This property is already booked from: {} until {}", startDate , endDate);
-            throw new OverlapedBookingException("This property is not available for booking on the dates selected.");
-        }
-        return propertyAvailable;
     }
 
     public boolean validateBlockPropertyAvailability(LocalDate startDate, LocalDate endDate, Property property) {
-        boolean propertyAvailable = true;
+        return validateBlockPropertyAvailability(startDate, endDate, property, null);
+    }
+
+    // Same as above for the block excludeId
+    public boolean validateBlockPropertyAvailability(LocalDate startDate, LocalDate endDate, Property property, UUID excludeId) {
+        long startTime = System.nanoTime();
+        Timer outcome = blockCheckTimers.invalid;
+        try {
+            validateRequest(startDate, endDate, property);
+
+            if(hasOverlappingBlock(property.getId(), startDate, endDate, excludeId)){
+                outcome = blockCheckTimers.overlap;
+                log.error("Failed to create block. This property is already blocked from: {} until {}", startDate , endDate);
+                throw new OverlapedBookingException("This property is already blocked for booking on the dates selected.");
+            }
+            outcome = blockCheckTimers.available;
+            return true;
+        } finally {
+            outcome.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean hasOverlappingBooking(UUID propertyId, LocalDate startDate, LocalDate endDate, UUID excludeId) {
+        return checkDatabase
+                ? bookingRepository.existsOverlappingBookingsForProperty(propertyId, startDate, endDate, excludeId)
+                : propertyAvailabilityIndex.hasOverlappingBooking(propertyId, startDate, endDate, excludeId);
+    }
+
+    private boolean hasOverlappingBlock(UUID propertyId, LocalDate startDate, LocalDate endDate, UUID excludeId) {
+        return checkDatabase
+                ? blockRepository.existsOverlappingBlocksForProperty(propertyId, startDate, endDate, excludeId)
+                : propertyAvailabilityIndex.hasOverlappingBlock(propertyId, startDate, endDate, excludeId);
+    }
 
+    private void validateRequest(LocalDate startDate, LocalDate endDate, Property property) {
         if(startDate.isAfter(endDate)){
             log.error("The startDate must be earlier than the endDate");
             throw new IllegalArgumentException("The start date cannot be after the end date. Please check the dates entered");
+        }
+        if(property == null || property.getId() == null){
+            log.error("The property must be informed to check its availability");
+            throw new IllegalArgumentException("The property is required. Please inform the property id");
+        }
+    }
 
+    // Registered once so recording a check only looks up a field, no tags are built per call
+    private static final class CheckTimers {
+        private final Timer available;
+        private final Timer overlap;
+        private final Timer invalid;
+
+        private CheckTimers(MeterRegistry meterRegistry, String check) {
+            this.available = timer(meterRegistry, check, "available");
+            this.overlap = timer(meterRegistry, check, "overlap");
+            this.invalid = timer(meterRegistry, check, "invalid");
         }
-        List<Block> blocks = blockRepository.findOverlappingBlocksForProperty(property,startDate,endDate);
-        if(!blocks.isEmpty()){
-            propertyAvailable = false;
-            log.error("Failed to create block. This property is already blocked from: {} until {}", startDate , endDate);
-            throw new OverlapedBookingException("This property is already blocked for booking on the dates selected.");
+
+        private static Timer timer(MeterRegistry meterRegistry, String check, String outcome) {
+            return Timer.builder("booking.availability.checks")
+                    .description("Availability checks of a property for new bookings and blocks")
+                    .tag("check", check)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
         }
-        return propertyAvailable;
     }
 }
@@ -1,6 +1,6 @@
 
 
 -- Insert two properties into TB_PROPERTY
-INSERT INTO TB_PROPERTY (id, owner_name) VALUES ('8f29f72e-4f63-11ec-8d3d-0242ac130001', 'John Doe');
+INSERT INTO TB_PROPERTY (id, owner_name, version) VALUES ('8f29f72e-4f63-11ec-8d3d-0242ac130001', 'John Doe', 0);
 
-INSERT INTO TB_PROPERTY (id, owner_name) VALUES ('e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc', 'Aretha Valente');
\ No newline at end of file
+INSERT INTO TB_PROPERTY (id, owner_name, version) VALUES ('e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc', 'Aretha Valente', 0);
\ No newline at end of file
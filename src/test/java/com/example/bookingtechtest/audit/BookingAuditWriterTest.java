@@ -0,0 +1,153 @@
+package com.example.bookingtechtest.audit;
+
+import com.example.bookingtechtest.entity.Booking;
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.repository.PropertyRepository;
+import com.example.bookingtechtest.request.BulkCreateBookingRequest;
+import com.example.bookingtechtest.request.CreateBookingRequest;
+import com.example.bookingtechtest.request.UpdateBookingRequest;
+import com.example.bookingtechtest.service.BookingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.envers.AuditReaderFactory;
+import org.hibernate.envers.DefaultRevisionEntity;
+import org.hibernate.envers.RevisionType;
+import org.hibernate.envers.query.AuditEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A queue of one overflows on any bulk request
+@SpringBootTest(properties = "booking.audit.queue-capacity=1")
+class BookingAuditWriterTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BookingAuditWriter bookingAuditWriter;
+
+    @Test
+    @DisplayName("Writing every change of a booking as its own Envers revision")
+    void given_BookingChanges_then_writeRevisions() throws Exception {
+        // Prepare data
+        Property property = newProperty();
+        UUID bookingId = bookingService.createBooking(request(property.getId(), "2040-01-01", "2040-01-05")).getId();
+        UpdateBookingRequest update = new UpdateBookingRequest();
+        update.setStartDate(LocalDate.parse("2040-02-01"));
+        update.setEndDate(LocalDate.parse("2040-02-05"));
+        update.setGuestName("Vinicius Junior");
+        update.setGuestLast4Ssn("56789");
+        bookingService.updateBooking(bookingId, update, null);
+        bookingService.deleteBooking(bookingId);
+
+        awaitBacklogWritten();
+
+        // The rows are in the audit table itself
+        assertEquals(3, auditRowsOf(bookingId));
+
+        // Read back through Envers, as if it had written them itself
+        List<Object[]> revisions = revisionsOf(bookingId);
+        assertEquals(3, revisions.size());
+        assertEquals(RevisionType.ADD, revisions.get(0)[2]);
+        assertEquals("Neymar Junior", ((Booking) revisions.get(0)[0]).getGuestName());
+        assertEquals(RevisionType.MOD, revisions.get(1)[2]);
+        assertEquals("Vinicius Junior", ((Booking) revisions.get(1)[0]).getGuestName());
+        assertEquals(LocalDate.parse("2040-02-05"), ((Booking) revisions.get(1)[0]).getEndDate());
+        assertEquals(RevisionType.DEL, revisions.get(2)[2]);
+        assertTrue(meterRegistry.get("booking.audit.lag").timer().count() > 0);
+    }
+
+    @Test
+    @DisplayName("Writing changes that did not fit in the queue from the outbox, in one revision per transaction")
+    void given_FullQueue_then_writeFromOutbox() throws Exception {
+        // Prepare data
+        Property property = newProperty();
+        BulkCreateBookingRequest request = new BulkCreateBookingRequest();
+        request.setBookings(new ArrayList<>());
+        for (int i = 0; i < 20; i++) {
+            LocalDate startDate = LocalDate.parse("2041-01-01").plusDays(i * 5L);
+            request.getBookings().add(request(property.getId(), startDate.toString(), startDate.plusDays(2).toString()));
+        }
+        double overflowsBefore = meterRegistry.get("booking.audit.overflows").counter().count();
+
+        // All bookings of the request are saved in one transaction
+        List<UUID> bookingIds = bookingService.createBookings(request).getResults().stream()
+                .map(result -> result.getBooking().getId())
+                .toList();
+        awaitBacklogWritten();
+
+        assertTrue(meterRegistry.get("booking.audit.overflows").counter().count() > overflowsBefore);
+        Set<Integer> revisionNumbers = new HashSet<>();
+        for (UUID bookingId : bookingIds) {
+            List<Object[]> revisions = revisionsOf(bookingId);
+            assertEquals(1, revisions.size());
+            assertEquals(RevisionType.ADD, revisions.get(0)[2]);
+            revisionNumbers.add(((DefaultRevisionEntity) revisions.get(0)[1]).getId());
+        }
+        assertEquals(1, revisionNumbers.size());
+        assertEquals(1, auditRowsOf(bookingIds.get(0)));
+        assertEquals(0, ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM tb_bookings_aud_outbox").getSingleResult()).intValue());
+    }
+
+    private void awaitBacklogWritten() throws InterruptedException {
+        assertTrue(bookingAuditWriter.awaitWritten(10, TimeUnit.SECONDS));
+        assertEquals(0.0, meterRegistry.get("booking.audit.backlog").gauge().value());
+    }
+
+    private int auditRowsOf(UUID bookingId) {
+        return ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM tb_bookings_aud WHERE id = ?1")
+                .setParameter(1, bookingId)
+                .getSingleResult()).intValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> revisionsOf(UUID bookingId) {
+        return transactionTemplate.execute(status -> AuditReaderFactory.get(entityManager).createQuery()
+                .forRevisionsOfEntity(Booking.class, false, true)
+                .add(AuditEntity.id().eq(bookingId))
+                .addOrder(AuditEntity.revisionNumber().asc())
+                .getResultList());
+    }
+
+    private Property newProperty() {
+        Property property = new Property();
+        property.setOwnerName("Audit Test");
+        return propertyRepository.save(property);
+    }
+
+    private static CreateBookingRequest request(UUID propertyId, String startDate, String endDate) {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setPropertyId(propertyId);
+        request.setStartDate(LocalDate.parse(startDate));
+        request.setEndDate(LocalDate.parse(endDate));
+        request.setGuestName("Neymar Junior");
+        request.setGuestLast4Ssn("01234");
+        return request;
+    }
+}
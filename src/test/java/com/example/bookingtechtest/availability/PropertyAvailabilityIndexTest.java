@@ -0,0 +1,231 @@
+package com.example.bookingtechtest.availability;
+
+import com.example.bookingtechtest.entity.Block;
+import com.example.bookingtechtest.entity.Booking;
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.enums.BookingStatus;
+import com.example.bookingtechtest.enums.DayStatus;
+import com.example.bookingtechtest.repository.BlockRepository;
+import com.example.bookingtechtest.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PropertyAvailabilityIndexTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private BlockRepository blockRepository;
+
+    private PropertyAvailabilityIndex propertyAvailabilityIndex;
+
+    private final UUID propertyId = UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+
+    @BeforeEach
+    void setUp() {
+        propertyAvailabilityIndex = new PropertyAvailabilityIndex(bookingRepository, blockRepository);
+    }
+
+    @Test
+    @DisplayName("Detecting overlaps against the ranges loaded from the database")
+    void given_LoadedRanges_then_detectOverlaps() {
+        // Prepare data: one booking from 2024-02-10 until 2024-02-15
+        OccupiedRange booking = new OccupiedRange(UUID.randomUUID(), propertyId,
+                LocalDate.parse("2024-02-10"), LocalDate.parse("2024-02-15"));
+        when(bookingRepository.findOccupiedRangesByPropertyId(propertyId)).thenReturn(List.of(booking));
+        when(blockRepository.findOccupiedRangesByPropertyId(propertyId)).thenReturn(List.of());
+
+        // Both ends are inclusive
+        assertTrue(propertyAvailabilityIndex.hasOverlappingBooking(propertyId, LocalDate.parse("2024-02-01"), LocalDate.parse("2024-02-10")));
+        assertTrue(propertyAvailabilityIndex.hasOverlappingBooking(propertyId, LocalDate.parse("2024-02-15"), LocalDate.parse("2024-02-20")));
+        assertTrue(propertyAvailabilityIndex.hasOverlappingBooking(propertyId, LocalDate.parse("2024-02-11"), LocalDate.parse("2024-02-12")));
+        assertTrue(propertyAvailabilityIndex.hasOverlappingBooking(propertyId, LocalDate.parse("2024-02-01"), LocalDate.parse("2024-02-28")));
+        assertFalse(propertyAvailabilityIndex.hasOverlappingBooking(propertyId, LocalDate.parse("2024-02-01"), LocalDate.parse("2024-02-09")));
+        assertFalse(propertyAvailabilityIndex.hasOverlappingBooking(propertyId, LocalDate.parse("2024-02-16"), LocalDate.parse("2024-02-20")));
+        assertFalse(propertyAvailabilityIndex.hasOverlappingBlock(propertyId, LocalDate.parse("2024-02-01"), LocalDate.parse("2024-02-28")));
+
+        // The property is loaded only once
+        verify(bookingRepository, times(1)).findOccupiedRangesByPropertyId(propertyId);
+    }
+
+    @Test
+    @DisplayName("Applying saved, canceled and deleted bookings and blocks")
+    void given_Writes_then_updateIndex() {
+        // Prepare data
+        when(bookingRepository.findOccupiedRangesByPropertyId(propertyId)).thenReturn(List.of());
+        when(blockRepository.findOccupiedRangesByPropertyId(propertyId)).thenReturn(List.of());
+        Property property = new Property();
+        property.setId(propertyId);
+
+        Booking booking = new Booking();
+        booking.setId(UUID.randomUUID());
+        booking.setStartDate(LocalDate.parse("2024-03-01"));
+        booking.setEndDate(LocalDate.parse("2024-03-05"));
+        booking.setStatus(BookingStatus.BOOKING_CREATED);
+        booking.setProperty(property);
+
+        Block block = new Block();
+        block.setId(UUID.randomUUID());
+        block.setStartDate(LocalDate.parse("2024-04-01"));
+        block.setEndDate(LocalDate.parse("2024-04-30"));
+        block.setProperty(property);
+
+        propertyAvailabilityIndex.bookingSaved(booking);
+        propertyAvailabilityIndex.blockSaved(block);
+        assertTrue(propertyAvailabilityIndex.hasOverlappingBooking(propertyId, LocalDate.parse("2024-03-04"), LocalDate.parse("2024-03-08")));
+        assertTrue(propertyAvailabilityIndex.hasOverlappingBlock(propertyId, LocalDate.parse("2024-04-10"), LocalDate.parse("2024-04-11")));
+
+        // Moving the booking frees its previous dates
+        booking.setStartDate(LocalDate.parse("2024-05-01"));
+        booking.setEndDate(LocalDate.parse("2024-05-05"));
+        propertyAvailabilityIndex.bookingSaved(booking);
+        assertFalse(propertyAvailabilityIndex.hasOverlappingBooking(propertyId, LocalDate.parse("2024-03-04"), LocalDate.parse("2024-03-08")));
+        assertTrue(propertyAvailabilityIndex.hasOverlappingBooking(propertyId, LocalDate.parse("2024-05-05"), LocalDate.parse("2024-05-08")));
+
+        // Canceling frees the dates and rebooking takes them again
+        booking.setStatus(BookingStatus.BOOKING_CANCELED);
+        propertyAvailabilityIndex.bookingSaved(booking);
+        assertFalse(propertyAvailabilityIndex.hasOverlappingBooking(propertyId, LocalDate.parse("2024-05-05"), LocalDate.parse("2024-05-08")));
+        booking.setStatus(BookingStatus.BOOKING_REBOOKED);
+        propertyAvailabilityIndex.bookingSaved(booking);
+        assertTrue(propertyAvailabilityIndex.hasOverlappingBooking(propertyId, LocalDate.parse("2024-05-05"), LocalDate.parse("2024-05-08")));
+
+        propertyAvailabilityIndex.bookingDeleted(booking);
+        propertyAvailabilityIndex.blockDeleted(block);
+        assertFalse(propertyAvailabilityIndex.hasOverlappingBooking(propertyId, LocalDate.parse("2024-01-01"), LocalDate.parse("2024-12-31")));
+        assertFalse(propertyAvailabilityIndex.hasOverlappingBlock(propertyId, LocalDate.parse("2024-01-01"), LocalDate.parse("2024-12-31")));
+    }
+
+    @Test
+    @DisplayName("Warming up the index with every occupied range at startup")
+    void given_WarmUp_then_skipDatabaseOnChecks() {
+        // Prepare data
+        OccupiedRange block = new OccupiedRange(UUID.randomUUID(), propertyId,
+                LocalDate.parse("2024-02-01"), LocalDate.parse("2024-02-05"));
+        when(bookingRepository.findAllOccupiedRanges()).thenReturn(List.of());
+        when(blockRepository.findAllOccupiedRanges()).thenReturn(List.of(block));
+
+        propertyAvailabilityIndex.warmUp();
+
+        assertTrue(propertyAvailabilityIndex.hasOverlappingBlock(propertyId, LocalDate.parse("2024-02-05"), LocalDate.parse("2024-02-06")));
+        assertFalse(propertyAvailabilityIndex.hasOverlappingBooking(propertyId, LocalDate.parse("2024-02-05"), LocalDate.parse("2024-02-06")));
+        verify(bookingRepository, never()).findOccupiedRangesByPropertyId(any());
+        verify(blockRepository, never()).findOccupiedRangesByPropertyId(any());
+    }
+
+    @Test
+    @DisplayName("Reading the calendar as bookings and blocks change")
+    void given_Writes_then_updateCalendar() {
+        // Prepare data: two overlapping legacy bookings and a block over one of them
+        OccupiedRange first = new OccupiedRange(UUID.randomUUID(), propertyId,
+                LocalDate.parse("2024-02-10"), LocalDate.parse("2024-02-15"));
+        OccupiedRange second = new OccupiedRange(UUID.randomUUID(), propertyId,
+                LocalDate.parse("2024-02-14"), LocalDate.parse("2024-02-16"));
+        OccupiedRange block = new OccupiedRange(UUID.randomUUID(), propertyId,
+                LocalDate.parse("2024-02-15"), LocalDate.parse("2024-02-15"));
+        when(bookingRepository.findOccupiedRangesByPropertyId(propertyId)).thenReturn(List.of(first, second));
+        when(blockRepository.findOccupiedRangesByPropertyId(propertyId)).thenReturn(List.of(block));
+
+        // Nothing to revalidate against before the first read, and asking does not load the property
+        assertNull(propertyAvailabilityIndex.calendarVersion(propertyId));
+        verifyNoInteractions(bookingRepository, blockRepository);
+
+        AvailabilityCalendar calendar = propertyAvailabilityIndex.calendar(propertyId, LocalDate.parse("2024-02-01"), 29);
+        assertEquals(calendar.getVersion(), propertyAvailabilityIndex.calendarVersion(propertyId));
+        assertEquals(DayStatus.FREE, calendar.status(8));
+        assertEquals(DayStatus.BOOKED, calendar.status(9));
+        assertEquals(DayStatus.BLOCKED, calendar.status(14));
+        assertEquals(DayStatus.BOOKED, calendar.status(15));
+        assertEquals(DayStatus.FREE, calendar.status(16));
+
+        // Removing the first booking keeps the days still covered by the second one
+        Property property = new Property();
+        property.setId(propertyId);
+        Booking booking = new Booking();
+        booking.setId(first.getId());
+        booking.setProperty(property);
+        propertyAvailabilityIndex.bookingDeleted(booking);
+
+        AvailabilityCalendar updated = propertyAvailabilityIndex.calendar(propertyId, LocalDate.parse("2024-02-01"), 29);
+        assertEquals(DayStatus.FREE, updated.status(9));
+        assertEquals(DayStatus.FREE, updated.status(12));
+        assertEquals(DayStatus.BOOKED, updated.status(13));
+        assertEquals(DayStatus.BLOCKED, updated.status(14));
+        assertEquals(DayStatus.BOOKED, updated.status(15));
+        assertNotEquals(calendar.getVersion(), updated.getVersion());
+        assertEquals(updated.getVersion(), propertyAvailabilityIndex.calendarVersion(propertyId));
+    }
+
+    @Test
+    @DisplayName("Showing held days in the calendar until the hold is released")
+    void given_Hold_then_showHeldDaysInCalendar() {
+        // Prepare data: a booking and a hold overlapping it by one day
+        OccupiedRange booking = new OccupiedRange(UUID.randomUUID(), propertyId,
+                LocalDate.parse("2024-02-10"), LocalDate.parse("2024-02-12"));
+        when(bookingRepository.findOccupiedRangesByPropertyId(propertyId)).thenReturn(List.of(booking));
+        when(blockRepository.findOccupiedRangesByPropertyId(propertyId)).thenReturn(List.of());
+        Hold hold = new Hold(UUID.randomUUID(), propertyId, LocalDate.parse("2024-02-12"),
+                LocalDate.parse("2024-02-14"), "John", "1234", Instant.now().plusSeconds(600));
+
+        AvailabilityCalendar free = propertyAvailabilityIndex.calendar(propertyId, LocalDate.parse("2024-02-01"), 29);
+        propertyAvailabilityIndex.holdPlaced(hold);
+
+        AvailabilityCalendar held = propertyAvailabilityIndex.calendar(propertyId, LocalDate.parse("2024-02-01"), 29);
+        assertEquals(DayStatus.BOOKED, held.status(11));
+        assertEquals(DayStatus.HELD, held.status(12));
+        assertEquals(DayStatus.HELD, held.status(13));
+        assertEquals(DayStatus.FREE, held.status(14));
+        assertNotEquals(free.getVersion(), held.getVersion());
+
+        propertyAvailabilityIndex.holdReleased(hold);
+
+        AvailabilityCalendar released = propertyAvailabilityIndex.calendar(propertyId, LocalDate.parse("2024-02-01"), 29);
+        assertEquals(DayStatus.FREE, released.status(12));
+        assertNotEquals(held.getVersion(), released.getVersion());
+    }
+
+    @Test
+    @DisplayName("Bounding the stays of a property, canceled bookings included")
+    void given_CanceledLongerStay_then_longestStayCoversIt() {
+        // Prepare data: a 4 day booking, and a canceled one of 20 days that is not loaded as a range
+        OccupiedRange booking = new OccupiedRange(UUID.randomUUID(), propertyId,
+                LocalDate.parse("2024-02-10"), LocalDate.parse("2024-02-14"));
+        when(bookingRepository.findOccupiedRangesByPropertyId(propertyId)).thenReturn(List.of(booking));
+        when(blockRepository.findOccupiedRangesByPropertyId(propertyId)).thenReturn(List.of());
+        when(bookingRepository.findLongestCanceledStayDays(propertyId)).thenReturn(20L);
+
+        assertEquals(20, propertyAvailabilityIndex.longestStayDays(propertyId));
+        assertFalse(propertyAvailabilityIndex.hasOverlappingBooking(propertyId,
+                LocalDate.parse("2024-03-01"), LocalDate.parse("2024-03-02")));
+
+        // A longer booking widens it, and canceling that booking keeps it, the listing still returns it
+        Property property = new Property();
+        property.setId(propertyId);
+        Booking longer = new Booking();
+        longer.setId(UUID.randomUUID());
+        longer.setProperty(property);
+        longer.setStartDate(LocalDate.parse("2024-04-01"));
+        longer.setEndDate(LocalDate.parse("2024-05-01"));
+        longer.setStatus(BookingStatus.BOOKING_CREATED);
+        propertyAvailabilityIndex.bookingSaved(longer);
+        assertEquals(30, propertyAvailabilityIndex.longestStayDays(propertyId));
+
+        longer.setStatus(BookingStatus.BOOKING_CANCELED);
+        propertyAvailabilityIndex.bookingSaved(longer);
+        assertEquals(30, propertyAvailabilityIndex.longestStayDays(propertyId));
+    }
+}
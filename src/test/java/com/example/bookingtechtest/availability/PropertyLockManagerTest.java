@@ -0,0 +1,106 @@
+package com.example.bookingtechtest.availability;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PropertyLockManagerTest {
+
+    private final PropertyLockManager propertyLockManager = new PropertyLockManager(64);
+
+    @Test
+    @DisplayName("Writes for different properties do not wait on each other")
+    void given_LockedProperty_then_otherPropertyProceeds() throws Exception {
+        // Prepare two properties that land on different stripes
+        UUID lockedProperty = UUID.randomUUID();
+        UUID otherProperty = UUID.randomUUID();
+        while (propertyLockManager.stripeFor(otherProperty) == propertyLockManager.stripeFor(lockedProperty)) {
+            otherProperty = UUID.randomUUID();
+        }
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Hold the lock of the first property in another thread
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> propertyLockManager.withLock(lockedProperty, () -> {
+            locked.countDown();
+            await(release);
+        }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        // The second property is not blocked by it
+        UUID property = otherProperty;
+        CompletableFuture<Boolean> other = CompletableFuture.supplyAsync(() -> propertyLockManager.withLock(property, () -> true));
+        assertTrue(other.get(5, TimeUnit.SECONDS));
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Writes for the same property run one at a time")
+    void given_SameProperty_then_serializeWrites() throws Exception {
+        // Prepare data
+        UUID propertyId = UUID.randomUUID();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        CompletableFuture<?>[] writes = new CompletableFuture<?>[8];
+        for (int i = 0; i < writes.length; i++) {
+            writes[i] = CompletableFuture.runAsync(() -> propertyLockManager.withLock(propertyId, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep();
+                running.decrementAndGet();
+            }));
+        }
+        CompletableFuture.allOf(writes).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    @DisplayName("Writes locking several properties in any order do not deadlock")
+    void given_OverlappingPropertySets_then_lockWithoutDeadlock() throws Exception {
+        // Prepare data
+        List<UUID> properties = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        List<UUID> reversed = List.of(properties.get(2), properties.get(1), properties.get(0));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        CompletableFuture<?>[] writes = new CompletableFuture<?>[8];
+        for (int i = 0; i < writes.length; i++) {
+            List<UUID> propertyIds = i % 2 == 0 ? properties : reversed;
+            writes[i] = CompletableFuture.runAsync(() -> propertyLockManager.withLocks(propertyIds, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep();
+                running.decrementAndGet();
+            }));
+        }
+        CompletableFuture.allOf(writes).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, maxRunning.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,16 +4,16 @@ import com.example.bookingtechtest.dto.BlockDTO;
 import com.example.bookingtechtest.entity.Block;
 import com.example.bookingtechtest.entity.Property;
 import com.example.bookingtechtest.repository.BlockRepository;
-import com.example.bookingtechtest.request.CreateBookingRequest;
 import com.example.bookingtechtest.request.UpdateBookingRequest;
+import com.example.bookingtechtest.response.BlockImportResult;
 import com.example.bookingtechtest.response.CreateBookingResponse;
+import com.example.bookingtechtest.service.BlockImportService;
 import com.example.bookingtechtest.service.BlockService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -21,31 +21,33 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.http.RequestEntity.post;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(BlockController.class)
 class BlockControllerTest {
 
-    @Mock
-    private ModelMapper mapper;
-
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -55,12 +57,15 @@ class BlockControllerTest {
     @MockBean
     private BlockService blockService;
 
+    @MockBean
+    private BlockImportService blockImportService;
+
     @Mock
     private BlockRepository blockRepository;
 
     @BeforeEach
     void setUp() {
-        mockMvc = MockMvcBuilders.standaloneSetup(new BlockController(blockService)).build();
+        mockMvc = MockMvcBuilders.standaloneSetup(new BlockController(blockService, blockImportService)).build();
     }
 
     @Test
@@ -79,7 +84,6 @@ class BlockControllerTest {
         block.setStartDate(startDateParsed);
         block.setEndDate(endDateParsed);
         block.setProperty(property);
-        mapper.map(block, CreateBookingRequest.class);
 
         mockMvc.perform(MockMvcRequestBuilders
                         .post("/api/blocks/create-block")
@@ -137,4 +141,22 @@ class BlockControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    @DisplayName("Import blocks from a CSV file and send back the rejected rows")
+    void given_CsvFile_then_importBlocks() throws Exception {
+        // Mock the behavior of the service, the error file is removed once the response was written
+        Path errorFile = Files.createTempFile("block-import-errors-", ".csv");
+        Files.writeString(errorFile, "line,propertyId,startDate,endDate,error\r\n");
+        when(blockImportService.importBlocks(any(InputStream.class))).thenReturn(new BlockImportResult(2, 0, errorFile));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/blocks/import")
+                        .content("propertyId,startDate,endDate\r\n")
+                        .contentType("text/csv"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BlockController.BLOCKS_IMPORTED, "2"))
+                .andExpect(header().string(BlockController.BLOCKS_REJECTED, "0"))
+                .andExpect(content().string("line,propertyId,startDate,endDate,error\r\n"));
+        assertFalse(Files.exists(errorFile));
+    }
 }
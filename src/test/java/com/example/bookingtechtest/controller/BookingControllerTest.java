@@ -1,13 +1,17 @@
 package com.example.bookingtechtest.controller;
 
 
+import com.example.bookingtechtest.dto.BookingDTO;
 import com.example.bookingtechtest.entity.Booking;
 import com.example.bookingtechtest.entity.Property;
 import com.example.bookingtechtest.enums.BookingStatus;
 import com.example.bookingtechtest.repository.BookingRepository;
 import com.example.bookingtechtest.repository.PropertyRepository;
+import com.example.bookingtechtest.request.BulkCreateBookingRequest;
 import com.example.bookingtechtest.request.CreateBookingRequest;
 import com.example.bookingtechtest.request.UpdateBookingRequest;
+import com.example.bookingtechtest.response.SerializedBooking;
+import com.example.bookingtechtest.response.UpdatedBooking;
 import com.example.bookingtechtest.service.BookingService;
 import com.example.bookingtechtest.validator.PropertyAvailabilityValidator;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -15,7 +19,6 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -25,18 +28,23 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(BookingController.class)
 class BookingControllerTest {
 
-    @Mock
-    private ModelMapper mapper;
-
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -108,18 +116,20 @@ class BookingControllerTest {
         request.setGuestName("Neymar Junior");
         request.setGuestLast4Ssn("0123543543");
 
-        // Mock the behavior of getBooking() to return an existing booking
-        Booking existingBooking = new Booking();
-        existingBooking.setId(bookingId);
-        when(bookingService.getBooking(bookingId)).thenReturn(existingBooking);
+        // Mock the behavior of updateBooking() to return the booking saved at version 6
+        BookingDTO updatedBooking = BookingDTO.builder().id(bookingId).guestName("Neymar Junior").build();
+        when(bookingService.updateBooking(eq(bookingId), any(UpdateBookingRequest.class), isNull()))
+                .thenReturn(new UpdatedBooking(updatedBooking, 6L, 2L));
 
-        // Perform the update booking request using MockMvc
+        // Perform the update booking request using MockMvc, the response carries the new ETag
         mockMvc.perform(MockMvcRequestBuilders
                         .put("/api/bookings/update-booking/" + bookingId)
                         .content(objectMapper.writeValueAsString(request))
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"6-2\""))
+                .andExpect(content().json("{\"id\":\"" + bookingId + "\",\"guestName\":\"Neymar Junior\"}"));
     }
 
     @Test
@@ -131,7 +141,7 @@ class BookingControllerTest {
         // Mock the behavior of getBooking() to return a canceled booking
         Booking canceledBooking = new Booking();
         canceledBooking.setId(bookingId);
-        canceledBooking.setStatus(BookingStatus.BOOKING_CANCELED.getName());
+        canceledBooking.setStatus(BookingStatus.BOOKING_CANCELED);
         when(bookingService.getBooking(bookingId)).thenReturn(canceledBooking);
 
         // Perform the rebook request using MockMvc
@@ -165,7 +175,7 @@ class BookingControllerTest {
 
         // Mock the behavior of bookingRepository.findById() to return a canceled booking
         Booking canceledBooking = new Booking();
-        canceledBooking.setStatus(BookingStatus.BOOKING_CANCELED.getName());
+        canceledBooking.setStatus(BookingStatus.BOOKING_CANCELED);
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(canceledBooking));
 
         // Prepare request data
@@ -182,8 +192,117 @@ class BookingControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    @DisplayName("Getting a booking, then revalidating it")
+    void given_BookingId_then_getBookingWithETag() throws Exception {
+        // Mock the behavior of the service
+        UUID bookingId = UUID.fromString("3b3e5980-b136-42b2-ab00-024948232e96");
+        when(bookingService.getSerializedBookingById(bookingId))
+                .thenReturn(new SerializedBooking(5L, 2L, ("{\"id\":\"" + bookingId + "\"}").getBytes()));
+
+        // The first request gets the booking and its version
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/bookings/{id}", bookingId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5-2\""))
+                .andExpect(content().json("{\"id\":\"" + bookingId + "\"}"));
+
+        // Asking again with the same version returns no body
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/bookings/{id}", bookingId)
+                        .header("If-None-Match", "\"5-2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Updating a booking only if it is still at the version the client read")
+    void given_IfMatch_then_passExpectedVersions() throws Exception {
+        // Define test data
+        UUID bookingId = UUID.fromString("3b3e5980-b136-42b2-ab00-024948232e96");
+        UpdateBookingRequest request = new UpdateBookingRequest();
+        request.setStartDate(LocalDate.parse("2024-03-01"));
+        request.setEndDate(LocalDate.parse("2024-03-05"));
+        request.setGuestName("Neymar Junior");
+        request.setGuestLast4Ssn("0123543543");
+        when(bookingService.updateBooking(eq(bookingId), any(UpdateBookingRequest.class), any()))
+                .thenReturn(new UpdatedBooking(new BookingDTO(), 8L, 2L));
+
+        // Strong tags are passed on as booking versions, with or without the property version, weak ones can never match
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/bookings/update-booking/" + bookingId)
+                        .header("If-Match", "\"5\", W/\"6\", \"7-2\"")
+                        .content(objectMapper.writeValueAsString(request))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        verify(bookingService).updateBooking(eq(bookingId), any(UpdateBookingRequest.class), eq(List.of(5L, 7L)));
+
+        // Any version will do
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/bookings/update-booking/" + bookingId)
+                        .header("If-Match", "*")
+                        .content(objectMapper.writeValueAsString(request))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        verify(bookingService).updateBooking(eq(bookingId), any(UpdateBookingRequest.class), isNull());
+    }
+
+    @Test
+    @DisplayName("Creating a booking with an idempotency key")
+    void given_IdempotencyKey_then_passItOn() throws Exception {
+        // Define test data
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setStartDate(LocalDate.parse("2024-02-01"));
+        request.setEndDate(LocalDate.parse("2024-02-05"));
+        request.setGuestName("Neymar Junior");
+        request.setGuestLast4Ssn("01234");
+        request.setPropertyId(UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc"));
+
+        // Perform the create booking request using MockMvc
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/bookings/create-booking")
+                        .header("Idempotency-Key", "3f1c2a8e-retry")
+                        .content(objectMapper.writeValueAsString(request))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        verify(bookingService).createBooking(any(CreateBookingRequest.class), eq("3f1c2a8e-retry"));
+    }
+
+    @Test
+    @DisplayName("Creating bookings in bulk successfully")
+    void given_ValidBulkRequest_then_createBookings() throws Exception {
+        // Define test data
+        UUID propertyId = UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+        CreateBookingRequest booking = new CreateBookingRequest();
+        booking.setStartDate(LocalDate.parse("2024-02-01"));
+        booking.setEndDate(LocalDate.parse("2024-02-05"));
+        booking.setGuestName("Neymar Junior");
+        booking.setGuestLast4Ssn("01234");
+        booking.setPropertyId(propertyId);
 
+        BulkCreateBookingRequest request = new BulkCreateBookingRequest();
+        request.setBookings(List.of(booking));
 
+        // Perform the bulk create request using MockMvc
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/bookings/create-bookings")
+                        .content(objectMapper.writeValueAsString(request))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
 
+    @Test
+    @DisplayName("Attempt to create bookings in bulk with an empty entry")
+    void given_NullBulkEntry_then_returnBadRequest() throws Exception {
+        // Perform the bulk create request using MockMvc
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/bookings/create-bookings")
+                        .content("{\"bookings\":[null]}")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(bookingService);
+    }
 
 }
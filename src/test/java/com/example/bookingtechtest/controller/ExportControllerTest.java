@@ -0,0 +1,81 @@
+package com.example.bookingtechtest.controller;
+
+import com.example.bookingtechtest.enums.ExportFormat;
+import com.example.bookingtechtest.exception.GlobalExceptionHandler;
+import com.example.bookingtechtest.service.ExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ExportController.class)
+class ExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new ExportController(exportService, 3600))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Streaming every block as CSV")
+    void given_CsvFormat_then_streamBlocks() throws Exception {
+        // Mock the behavior of the service
+        when(exportService.exportBlocks(eq(ExportFormat.CSV), any(OutputStream.class))).thenAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write("id\r\n".getBytes(StandardCharsets.UTF_8));
+            return 0L;
+        });
+
+        // The rows are written once the request went async
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/exports/blocks")
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // Only the export runs under the long timeout
+        assertEquals(3_600_000L, result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"blocks.csv\""))
+                .andExpect(content().string("id\r\n"));
+    }
+
+    @Test
+    @DisplayName("Attempt to export in an unknown format")
+    void given_UnknownFormat_then_throwIllegalArgumentException() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/exports/bookings")
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(exportService);
+    }
+}
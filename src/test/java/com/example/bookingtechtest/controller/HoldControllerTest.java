@@ -0,0 +1,85 @@
+package com.example.bookingtechtest.controller;
+
+import com.example.bookingtechtest.request.CreateBookingRequest;
+import com.example.bookingtechtest.response.CreateBookingResponse;
+import com.example.bookingtechtest.response.HoldResponse;
+import com.example.bookingtechtest.service.HoldService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(HoldController.class)
+class HoldControllerTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private HoldService holdService;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new HoldController(holdService)).build();
+    }
+
+    @Test
+    @DisplayName("Holding dates of a property")
+    void given_ValidRequest_then_createHold() throws Exception {
+        // Define test data
+        UUID holdId = UUID.fromString("3b3e5980-b136-42b2-ab00-024948232e96");
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setPropertyId(UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc"));
+        request.setStartDate(LocalDate.parse("2024-02-01"));
+        request.setEndDate(LocalDate.parse("2024-02-05"));
+        request.setGuestName("Neymar Junior");
+        request.setGuestLast4Ssn("01234");
+        when(holdService.createHold(any(CreateBookingRequest.class)))
+                .thenReturn(HoldResponse.builder().id(holdId).expiresAt("2024-01-20T10:10:00Z").build());
+
+        // Perform the create hold request using MockMvc
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/holds/create-hold")
+                        .content(objectMapper.writeValueAsString(request))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(holdId.toString()))
+                .andExpect(jsonPath("$.expiresAt").value("2024-01-20T10:10:00Z"));
+    }
+
+    @Test
+    @DisplayName("Confirming a hold into a booking, then releasing another one")
+    void given_Hold_then_confirmOrRelease() throws Exception {
+        // Define test data
+        UUID holdId = UUID.fromString("3b3e5980-b136-42b2-ab00-024948232e96");
+        when(holdService.confirmHold(holdId)).thenReturn(CreateBookingResponse.builder().id(UUID.randomUUID()).build());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/holds/confirm-hold/{id}", holdId))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .delete("/api/holds/release-hold/{id}", holdId))
+                .andExpect(status().isNoContent());
+        verify(holdService).releaseHold(holdId);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.bookingtechtest.controller;
+
+import com.example.bookingtechtest.enums.BookingStatus;
+import com.example.bookingtechtest.response.AvailablePropertiesResponse;
+import com.example.bookingtechtest.response.PropertyBookingsResponse;
+import com.example.bookingtechtest.response.PropertyCalendarResponse;
+import com.example.bookingtechtest.service.PropertyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.format.support.FormattingConversionService;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(PropertyController.class)
+class PropertyControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PropertyService propertyService;
+
+    @BeforeEach
+    void setUp() {
+        FormattingConversionService conversionService = new DefaultFormattingConversionService();
+        conversionService.addConverter(new BookingStatusParameterConverter());
+        mockMvc = MockMvcBuilders.standaloneSetup(new PropertyController(propertyService, 30))
+                .setConversionService(conversionService)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Searching available properties")
+    void given_DateRange_then_findAvailableProperties() throws Exception {
+        // Mock the behavior of the service
+        when(propertyService.findAvailableProperties(eq(LocalDate.parse("2024-02-01")), eq(LocalDate.parse("2024-02-05")), any(), eq(0), eq(50)))
+                .thenReturn(AvailablePropertiesResponse.builder().properties(List.of()).build());
+
+        // Perform the search request using MockMvc
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/properties/available")
+                        .param("startDate", "2024-02-01")
+                        .param("endDate", "2024-02-05"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Getting the calendar of a property, then revalidating it")
+    void given_PropertyId_then_getCalendarWithETag() throws Exception {
+        // Mock the behavior of the service
+        UUID propertyId = UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+        when(propertyService.getCalendar(propertyId, LocalDate.parse("2024-02-01"), 12))
+                .thenReturn(PropertyCalendarResponse.builder().propertyId(propertyId).version("abc-7").days(List.of()).build());
+        when(propertyService.getCalendarVersion(propertyId, 12)).thenReturn("abc-7");
+
+        // The first request gets the calendar and its version
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/properties/{propertyId}/calendar", propertyId)
+                        .param("startDate", "2024-02-01"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc-7-2024-02-01-12\""))
+                .andExpect(header().string("Cache-Control", "max-age=30, private"));
+
+        // Asking again with the same version returns no body
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/properties/{propertyId}/calendar", propertyId)
+                        .param("startDate", "2024-02-01")
+                        .header("If-None-Match", "\"abc-7-2024-02-01-12\""))
+                .andExpect(status().isNotModified());
+        // Without building the calendar again
+        verify(propertyService, times(1)).getCalendar(any(), any(), any(Integer.class));
+    }
+
+    @Test
+    @DisplayName("Getting another window of an unchanged calendar under another ETag")
+    void given_OtherWindow_then_getCalendarWithOtherETag() throws Exception {
+        // Mock the behavior of the service, the property did not change between both windows
+        UUID propertyId = UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+        when(propertyService.getCalendar(eq(propertyId), any(), any(Integer.class)))
+                .thenReturn(PropertyCalendarResponse.builder().propertyId(propertyId).version("abc-7").days(List.of()).build());
+        when(propertyService.getCalendarVersion(eq(propertyId), any(Integer.class))).thenReturn("abc-7");
+
+        // The next month is not the calendar the client revalidates
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/properties/{propertyId}/calendar", propertyId)
+                        .param("startDate", "2024-03-01")
+                        .header("If-None-Match", "\"abc-7-2024-02-01-12\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc-7-2024-03-01-12\""));
+
+        // Nor is a shorter one
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/properties/{propertyId}/calendar", propertyId)
+                        .param("startDate", "2024-02-01")
+                        .param("months", "3")
+                        .header("If-None-Match", "\"abc-7-2024-02-01-12\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc-7-2024-02-01-3\""));
+    }
+
+    @Test
+    @DisplayName("Listing the bookings of a property")
+    void given_PropertyId_then_findBookings() throws Exception {
+        // Mock the behavior of the service
+        UUID propertyId = UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+        when(propertyService.findBookings(propertyId, BookingStatus.BOOKING_CANCELED, LocalDate.parse("2024-02-01"), null, "abc", 20))
+                .thenReturn(PropertyBookingsResponse.builder().propertyId(propertyId).size(20).nextCursor("def").bookings(List.of()).build());
+
+        // Perform the listing request using MockMvc
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/properties/{propertyId}/bookings", propertyId)
+                        .param("status", "BOOKING_CANCELED")
+                        .param("startDate", "2024-02-01")
+                        .param("cursor", "abc")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").value("def"));
+    }
+
+    @Test
+    @DisplayName("Listing the bookings of a property by the status name the responses show")
+    void given_StatusDisplayName_then_findBookingsWithThatStatus() throws Exception {
+        // Mock the behavior of the service
+        UUID propertyId = UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+        when(propertyService.findBookings(propertyId, BookingStatus.BOOKING_CANCELED, null, null, null, 50))
+                .thenReturn(PropertyBookingsResponse.builder().propertyId(propertyId).size(50).bookings(List.of()).build());
+
+        // Perform the listing request using MockMvc, in any case
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/properties/{propertyId}/bookings", propertyId)
+                        .param("status", "canceled"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(50));
+    }
+
+    @Test
+    @DisplayName("Attempt to list the bookings of a property with an unknown status")
+    void given_UnknownStatus_then_returnBadRequest() throws Exception {
+        UUID propertyId = UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/properties/{propertyId}/bookings", propertyId)
+                        .param("status", "Pending"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(propertyService);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.bookingtechtest.csv;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvReaderTest {
+
+    @Test
+    @DisplayName("Reading lines ended by CRLF, LF or CR, and cutting the ones that are too long")
+    void given_MixedLines_then_readThemOneByOne() throws Exception {
+        // A line far longer than the reader buffer, so it is skipped across several refills
+        String longLine = "x".repeat(20_000);
+        String text = "a,b\r\nc\n\r\n" + longLine + "\rlast";
+
+        try (CsvReader reader = new CsvReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), 10)) {
+            assertEquals("a,b", reader.readLine());
+            assertEquals("c", reader.readLine());
+            assertEquals("", reader.readLine());
+            assertEquals("x".repeat(10), reader.readLine());
+            assertTrue(reader.isTruncated());
+            assertEquals("last", reader.readLine());
+            assertFalse(reader.isTruncated());
+            assertNull(reader.readLine());
+        }
+    }
+
+    @Test
+    @DisplayName("Splitting quoted fields with commas and doubled quotes")
+    void given_QuotedFields_then_splitThem() {
+        assertEquals(List.of("1", "a, \"b\"", ""), CsvReader.split("1,\"a, \"\"b\"\"\","));
+    }
+}
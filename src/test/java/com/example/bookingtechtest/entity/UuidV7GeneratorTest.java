@@ -0,0 +1,46 @@
+package com.example.bookingtechtest.entity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    @DisplayName("Generating version 7 UUIDs that carry the current time")
+    void given_NewId_then_haveVersion7LayoutAndTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7Generator.generate();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        // The first 48 bits are the Unix time in milliseconds, carried forward at most by a few counter overflows
+        long timestamp = id.getMostSignificantBits() >>> 16;
+        assertTrue(timestamp >= before && timestamp <= after + 1000, "timestamp " + timestamp + " not around " + before);
+    }
+
+    @Test
+    @DisplayName("Generating ids that sort in creation order")
+    void given_ManyIds_then_sortInCreationOrder() {
+        // The text form sorts like the 16 bytes a database compares
+        String previous = UuidV7Generator.generate().toString();
+        for (int i = 0; i < 100_000; i++) {
+            String next = UuidV7Generator.generate().toString();
+            assertTrue(next.compareTo(previous) > 0, next + " does not sort after " + previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    @DisplayName("Keeping ids increasing when the clock goes backwards")
+    void given_ClockGoingBackwards_then_carryTimestampForward() {
+        long last = UuidV7Generator.nextTimestampAndCounter(System.currentTimeMillis());
+
+        assertEquals(last + 1, UuidV7Generator.nextTimestampAndCounter(System.currentTimeMillis() - 60_000));
+    }
+}
@@ -0,0 +1,371 @@
+package com.example.bookingtechtest.load;
+
+import com.example.bookingtechtest.entity.Block;
+import com.example.bookingtechtest.entity.Booking;
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.repository.BlockRepository;
+import com.example.bookingtechtest.repository.BookingRepository;
+import com.example.bookingtechtest.repository.PropertyRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives mixed traffic through the booking and block endpoints of a running application,
+ * reports throughput and latency percentiles per operation, then checks that no property
+ * ended up with overlapping active bookings or overlapping blocks.
+ * <p>
+ * Excluded from the regular build, run it with {@code mvn -Pload-test test}. Tune it with
+ * {@code -Dload.threads}, {@code -Dload.duration-seconds}, {@code -Dload.warmup-seconds}
+ * and {@code -Dload.properties} (fewer properties means more contention).
+ * <p>
+ * Every client is a virtual thread, so thousands of concurrent clients can be simulated. The
+ * report shows how many requests were in flight at once and the peak of live platform threads
+ * in the JVM, which tells how many threads the server needed to hold them.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BookingLoadTest {
+
+    private static final int THREADS = Integer.getInteger("load.threads", 16);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 30);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 5);
+    private static final int PROPERTIES = Integer.getInteger("load.properties", 8);
+    private static final LocalDate FIRST_DAY = LocalDate.parse("2025-01-01");
+    private static final int DAYS = 365;
+
+    private enum Operation {
+        GET_BOOKING(30), CREATE_BOOKING(25), UPDATE_BOOKING(10), CANCEL_BOOKING(8), REBOOK_BOOKING(7),
+        DELETE_BOOKING(5), CREATE_BLOCK(8), UPDATE_BLOCK(4), DELETE_BLOCK(3);
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BlockRepository blockRepository;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final RecentIds bookingIds = new RecentIds();
+    private final RecentIds blockIds = new RecentIds();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private List<UUID> propertyIds;
+
+    @Test
+    @DisplayName("Mixed traffic keeps every property free of overlapping bookings")
+    void given_MixedConcurrentTraffic_then_reportLatencyAndKeepAvailabilityConsistent() throws Exception {
+        // Prepare data
+        propertyIds = new ArrayList<>();
+        for (int i = 0; i < PROPERTIES; i++) {
+            Property property = new Property();
+            property.setOwnerName("Load test " + i);
+            propertyIds.add(propertyRepository.save(property).getId());
+        }
+
+        run(Duration.ofSeconds(WARMUP_SECONDS));
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        peakInFlight.set(0);
+        Map<Operation, Results> results = run(Duration.ofSeconds(DURATION_SECONDS));
+        report(results, peakInFlight.get(), threads.getPeakThreadCount());
+
+        // Every request got an answer the API documents, nothing failed on the server
+        long errors = results.values().stream().mapToLong(Results::errors).sum();
+        assertEquals(0, errors, "requests answered with 5xx or not answered at all");
+        assertTrue(results.get(Operation.CREATE_BOOKING).successes() > 0, "no booking was created");
+
+        // The oracle: whatever got through, no two active bookings or blocks of a property overlap
+        assertEquals(List.of(), overlappingBookings());
+        assertEquals(List.of(), overlappingBlocks());
+    }
+
+    private Map<Operation, Results> run(Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<Map<Operation, Results>>> workers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                workers.add(executor.submit(() -> work(deadline)));
+            }
+            Map<Operation, Results> results = new EnumMap<>(Operation.class);
+            for (Future<Map<Operation, Results>> worker : workers) {
+                worker.get().forEach((operation, workerResults) ->
+                        results.computeIfAbsent(operation, o -> new Results()).addAll(workerResults));
+            }
+            results.values().forEach(operationResults -> operationResults.elapsedNanos = duration.toNanos());
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<Operation, Results> work(long deadline) {
+        // Each worker keeps its own results, they are merged once it is done
+        Map<Operation, Results> results = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            results.put(operation, new Results());
+        }
+        while (System.nanoTime() < deadline) {
+            Operation operation = nextOperation();
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = execute(operation);
+            } catch (Exception e) {
+                log.warn("{} failed: {}", operation, e.toString());
+                status = -1;
+            }
+            results.get(operation).record(status, System.nanoTime() - start);
+        }
+        return results;
+    }
+
+    private int execute(Operation operation) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate startDate = FIRST_DAY.plusDays(random.nextInt(DAYS));
+        LocalDate endDate = startDate.plusDays(random.nextInt(7));
+        UUID propertyId = propertyIds.get(random.nextInt(propertyIds.size()));
+
+        return switch (operation) {
+            case GET_BOOKING -> send("GET", "/api/bookings/" + bookingIds.pick(), null).statusCode();
+            case CREATE_BOOKING -> {
+                HttpResponse<byte[]> response = send("POST", "/api/bookings/create-booking", Map.of(
+                        "propertyId", propertyId, "startDate", startDate, "endDate", endDate,
+                        "guestName", "Load", "guestLast4Ssn", "1234"));
+                rememberId(response, bookingIds);
+                yield response.statusCode();
+            }
+            case UPDATE_BOOKING -> send("PUT", "/api/bookings/update-booking/" + bookingIds.pick(), Map.of(
+                    "startDate", startDate, "endDate", endDate, "guestName", "Load", "guestLast4Ssn", "4321")).statusCode();
+            case CANCEL_BOOKING -> send("PUT", "/api/bookings/cancel-booking/" + bookingIds.pick(), null).statusCode();
+            case REBOOK_BOOKING -> send("PUT", "/api/bookings/rebook-booking/" + bookingIds.pick(), null).statusCode();
+            case DELETE_BOOKING -> send("DELETE", "/api/bookings/delete-booking/" + bookingIds.pick(), null).statusCode();
+            case CREATE_BLOCK -> {
+                HttpResponse<byte[]> response = send("POST", "/api/blocks/create-block", Map.of(
+                        "startDate", startDate, "endDate", endDate, "property", Map.of("id", propertyId)));
+                rememberId(response, blockIds);
+                yield response.statusCode();
+            }
+            case UPDATE_BLOCK -> send("PUT", "/api/blocks/update-block/" + blockIds.pick(), Map.of(
+                    "startDate", startDate, "endDate", endDate)).statusCode();
+            case DELETE_BLOCK -> send("DELETE", "/api/blocks/delete-block/" + blockIds.pick(), null).statusCode();
+        };
+    }
+
+    private HttpResponse<byte[]> send(String method, String path, Object body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30));
+        if (body == null) {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        } else {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        }
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void rememberId(HttpResponse<byte[]> response, RecentIds ids) throws Exception {
+        if (response.statusCode() / 100 == 2) {
+            JsonNode json = objectMapper.readTree(response.body());
+            ids.add(UUID.fromString(json.get("id").asText()));
+        }
+    }
+
+    private static Operation nextOperation() {
+        int totalWeight = Arrays.stream(Operation.values()).mapToInt(operation -> operation.weight).sum();
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : Operation.values()) {
+            pick -= operation.weight;
+            if (pick < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private List<String> overlappingBookings() {
+        List<Booking> activeBookings = bookingRepository.findAll().stream()
+                .filter(booking -> booking.getStatus().isActive())
+                .toList();
+        return overlapping(activeBookings, booking -> booking.getProperty().getId(),
+                Booking::getId, Booking::getStartDate, Booking::getEndDate);
+    }
+
+    private List<String> overlappingBlocks() {
+        return overlapping(blockRepository.findAll(), block -> block.getProperty().getId(),
+                Block::getId, Block::getStartDate, Block::getEndDate);
+    }
+
+    private static <T> List<String> overlapping(List<T> ranges, Function<T, UUID> propertyId, Function<T, UUID> id,
+                                                Function<T, LocalDate> startDate, Function<T, LocalDate> endDate) {
+        List<String> overlaps = new ArrayList<>();
+        Map<UUID, List<T>> rangesByProperty = ranges.stream().collect(Collectors.groupingBy(propertyId));
+        rangesByProperty.values().forEach(propertyRanges -> {
+            List<T> sorted = propertyRanges.stream()
+                    .sorted((a, b) -> startDate.apply(a).compareTo(startDate.apply(b)))
+                    .toList();
+            // Sorted by start date, a range overlaps an earlier one only if it starts before the latest end so far
+            T latestEnding = null;
+            for (T range : sorted) {
+                if (latestEnding != null && !startDate.apply(range).isAfter(endDate.apply(latestEnding))) {
+                    overlaps.add(id.apply(latestEnding) + " overlaps " + id.apply(range));
+                }
+                if (latestEnding == null || endDate.apply(range).isAfter(endDate.apply(latestEnding))) {
+                    latestEnding = range;
+                }
+            }
+        });
+        return overlaps;
+    }
+
+    private static void report(Map<Operation, Results> results, int peakInFlight, int peakPlatformThreads) {
+        StringBuilder report = new StringBuilder(String.format("%nLoad test: %d clients, %d properties, %d s%n", THREADS, PROPERTIES, DURATION_SECONDS));
+        report.append(String.format("%-16s %8s %8s %8s %7s %9s %9s %9s %9s%n",
+                "operation", "requests", "2xx", "4xx", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms"));
+        Results total = new Results();
+        results.forEach((operation, operationResults) -> {
+            report.append(operationResults.format(operation.name()));
+            total.addAll(operationResults);
+            total.elapsedNanos = operationResults.elapsedNanos;
+        });
+        report.append(total.format("TOTAL"));
+        report.append(String.format("peak in-flight requests %d, peak live platform threads %d%n", peakInFlight, peakPlatformThreads));
+        log.info(report.toString());
+    }
+
+    /**
+     * Outcome and latency of every request of one operation.
+     */
+    private static class Results {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long successes;
+        private long rejections;
+        private long errors;
+        private long elapsedNanos;
+
+        void record(int status, long latencyNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            // 4xx are answers the API documents: overlaps, unknown or concurrently modified ids
+            if (status / 100 == 2) {
+                successes++;
+            } else if (status / 100 == 4) {
+                rejections++;
+            } else {
+                errors++;
+            }
+        }
+
+        void addAll(Results other) {
+            latencies = Arrays.copyOf(latencies, Math.max(latencies.length, count + other.count));
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            successes += other.successes;
+            rejections += other.rejections;
+            errors += other.errors;
+        }
+
+        long successes() {
+            return successes;
+        }
+
+        long errors() {
+            return errors;
+        }
+
+        String format(String name) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            double seconds = elapsedNanos / 1e9;
+            return String.format("%-16s %8d %8d %8d %7d %9.1f %9.2f %9.2f %9.2f%n", name, count, successes, rejections, errors,
+                    count / seconds, percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999));
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    /**
+     * The last ids created, for the operations that act on an existing booking or block.
+     * Some of them are deleted by the time they are picked, which is part of the mix.
+     */
+    private static class RecentIds {
+        private final AtomicReferenceArray<UUID> ids = new AtomicReferenceArray<>(4096);
+        private final AtomicLong added = new AtomicLong();
+
+        void add(UUID id) {
+            ids.set((int) (added.getAndIncrement() % ids.length()), id);
+        }
+
+        UUID pick() {
+            int size = (int) Math.min(added.get(), ids.length());
+            if (size == 0) {
+                return UUID.randomUUID();
+            }
+            return ids.get(ThreadLocalRandom.current().nextInt(size));
+        }
+    }
+}
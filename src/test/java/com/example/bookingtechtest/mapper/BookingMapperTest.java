@@ -0,0 +1,65 @@
+package com.example.bookingtechtest.mapper;
+
+import com.example.bookingtechtest.dto.BlockDTO;
+import com.example.bookingtechtest.dto.BookingDTO;
+import com.example.bookingtechtest.entity.Block;
+import com.example.bookingtechtest.entity.Booking;
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.enums.BookingStatus;
+import com.example.bookingtechtest.response.CreateBookingResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BookingMapperTest {
+
+    private final PropertyMapper propertyMapper = new PropertyMapperImpl();
+    private final DateMapper dateMapper = new DateMapperImpl();
+    private final BookingMapper bookingMapper = new BookingMapperImpl(propertyMapper, dateMapper);
+    private final BlockMapper blockMapper = new BlockMapperImpl(propertyMapper, dateMapper);
+
+    // The reflective mapper the generated ones replace, the responses must not change
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    @Test
+    @DisplayName("Mapping a booking gives the same result as before")
+    void given_Booking_then_mapLikeModelMapper() {
+        // Prepare data
+        Booking booking = new Booking(UUID.randomUUID(), LocalDate.parse("2024-02-01"), LocalDate.parse("2024-02-05"),
+                BookingStatus.BOOKING_CREATED, LocalDateTime.parse("2024-01-10T10:15:00"), LocalDateTime.parse("2024-01-11T08:00:30.120"),
+                1L, "Ethan", "1234", property());
+
+        // The status used to be stored as its display name, which is still what the API returns
+        BookingDTO expectedDTO = modelMapper.map(booking, BookingDTO.class);
+        expectedDTO.setStatus("Booked");
+        CreateBookingResponse expectedResponse = modelMapper.map(booking, CreateBookingResponse.class);
+        expectedResponse.setStatus("Booked");
+
+        assertEquals(expectedDTO, bookingMapper.toBookingDTO(booking));
+        assertEquals(expectedResponse, bookingMapper.toCreateBookingResponse(booking));
+        assertEquals("2024-01-10T10:15", bookingMapper.toBookingDTO(booking).getCreated_at());
+    }
+
+    @Test
+    @DisplayName("Mapping a block gives the same result as before")
+    void given_Block_then_mapLikeModelMapper() {
+        // Prepare data
+        Block block = new Block(UUID.randomUUID(), LocalDate.parse("2024-03-01"), LocalDate.parse("2024-03-05"),
+                null, null, 0L, property());
+
+        assertEquals(modelMapper.map(block, BlockDTO.class), blockMapper.toBlockDTO(block));
+    }
+
+    private static Property property() {
+        Property property = new Property();
+        property.setId(UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc"));
+        property.setOwnerName("Aretha Valente");
+        return property;
+    }
+}
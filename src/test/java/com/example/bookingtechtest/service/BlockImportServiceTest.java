@@ -0,0 +1,118 @@
+package com.example.bookingtechtest.service;
+
+import com.example.bookingtechtest.entity.Block;
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.repository.PropertyRepository;
+import com.example.bookingtechtest.response.BlockImportResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Chunks of two rows, so the file is committed in several chunks
+@SpringBootTest(properties = "booking.import.chunk-size=2")
+class BlockImportServiceTest {
+
+    @Autowired
+    private BlockImportService blockImportService;
+
+    @Autowired
+    private BlockService blockService;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Importing the available rows of a file and reporting the others in line order")
+    void given_CsvFile_then_importAvailableBlocks() throws Exception {
+        // Prepare data, the property already has a block in March
+        Property property = new Property();
+        property.setOwnerName("Import Test");
+        property = propertyRepository.save(property);
+        Block existing = new Block();
+        existing.setStartDate(LocalDate.parse("2043-03-01"));
+        existing.setEndDate(LocalDate.parse("2043-03-10"));
+        existing.setProperty(property);
+        blockService.createBlock(existing);
+        UUID unknownProperty = UUID.randomUUID();
+        String csv = "endDate,propertyId,startDate,note\r\n" +
+                "2043-01-05," + property.getId() + ",2043-01-01,new year\r\n" +
+                "2043-02-05," + property.getId() + ",2043-02-01,\r\n" +
+                // Overlaps the row above, which was committed with the previous chunk
+                "2043-02-07," + property.getId() + ",2043-02-03,\r\n" +
+                "2043-03-06," + property.getId() + ",2043-03-05,\"overlaps, the existing block\"\r\n" +
+                "\r\n" +
+                "2043-04-05," + unknownProperty + ",2043-04-01,\r\n" +
+                "2043-13-01," + property.getId() + ",2043-05-01,\r\n" +
+                "2043-07-05," + property.getId() + ",2043-07-01,\r\n" +
+                // Overlaps the row above, in the same chunk
+                "2043-07-04," + property.getId() + ",2043-07-03,\r\n" +
+                "2043-06-01," + property.getId() + ",2043-06-05,\r\n";
+
+        BlockImportResult result = blockImportService.importBlocks(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(3, result.getImported());
+        assertEquals(6, result.getRejected());
+        List<String> errors = Files.readAllLines(result.getErrorFile());
+        Files.delete(result.getErrorFile());
+        assertEquals(List.of(
+                "line,propertyId,startDate,endDate,error",
+                "4," + property.getId() + ",2043-02-03,2043-02-07,This property is already blocked for booking on the dates selected.",
+                "5," + property.getId() + ",2043-03-05,2043-03-06,This property is already blocked for booking on the dates selected.",
+                "7," + unknownProperty + ",2043-04-01,2043-04-05,Property not found with id: " + unknownProperty,
+                "8," + property.getId() + ",2043-05-01,2043-13-01,Invalid date: 2043-13-01. Please use yyyy-MM-dd",
+                "10," + property.getId() + ",2043-07-03,2043-07-04,This block overlaps another block of the same file.",
+                "11," + property.getId() + ",2043-06-05,2043-06-01,The start date cannot be after the end date. Please check the dates entered"
+        ), errors);
+        assertEquals(List.of("2043-01-01", "2043-02-01", "2043-03-01", "2043-07-01"), jdbcTemplate.queryForList(
+                "SELECT start_date FROM tb_block WHERE property_id = ? ORDER BY start_date", LocalDate.class, property.getId())
+                .stream().map(LocalDate::toString).toList());
+    }
+
+    @Test
+    @DisplayName("Rejecting a line that is too long to be a block and importing the next one")
+    void given_TooLongLine_then_rejectItAsARow() throws Exception {
+        // Prepare data
+        Property property = new Property();
+        property.setOwnerName("Import Test");
+        property = propertyRepository.save(property);
+        String csv = "propertyId,startDate,endDate,note\n" +
+                property.getId() + ",2043-08-01,2043-08-05," + "x".repeat(BlockImportService.MAX_LINE_LENGTH) + "\n" +
+                property.getId() + ",2043-09-01,2043-09-05,\n";
+
+        BlockImportResult result = blockImportService.importBlocks(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getRejected());
+        List<String> errors = Files.readAllLines(result.getErrorFile());
+        Files.delete(result.getErrorFile());
+        assertEquals(List.of(
+                "line,propertyId,startDate,endDate,error",
+                "2,,,,The line is longer than " + BlockImportService.MAX_LINE_LENGTH + " characters"
+        ), errors);
+    }
+
+    @Test
+    @DisplayName("Attempt to import a file without the required columns")
+    void given_MissingColumn_then_throwIllegalArgumentException() {
+        String csv = "propertyId,startDate\r\n" + UUID.randomUUID() + ",2043-01-01\r\n";
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> blockImportService.importBlocks(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))));
+        assertEquals("The header line has no endDate column", exception.getMessage());
+    }
+}
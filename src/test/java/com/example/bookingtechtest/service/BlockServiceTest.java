@@ -1,24 +1,30 @@
 package com.example.bookingtechtest.service;
 
+import com.example.bookingtechtest.availability.PropertyAvailabilityIndex;
+import com.example.bookingtechtest.availability.PropertyLockManager;
+import com.example.bookingtechtest.config.BeanConfig;
 import com.example.bookingtechtest.dto.BlockDTO;
 import com.example.bookingtechtest.entity.Block;
 import com.example.bookingtechtest.entity.Property;
 import com.example.bookingtechtest.exception.OverlapedBookingException;
+import com.example.bookingtechtest.mapper.BlockMapper;
 import com.example.bookingtechtest.repository.BlockRepository;
+import com.example.bookingtechtest.repository.PropertyRepository;
 import com.example.bookingtechtest.validator.PropertyAvailabilityValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
 
 import java.time.LocalDate;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -27,7 +33,7 @@ import static org.mockito.Mockito.*;
 class BlockServiceTest {
 
     @Mock
-    private ModelMapper mapper ;
+    private BlockMapper mapper ;
 
     @Mock
     private BlockService blockService;
@@ -35,12 +41,20 @@ class BlockServiceTest {
     @Mock
     private BlockRepository blockRepository;
 
+    @Mock
+    private PropertyRepository propertyRepository;
+
     @Mock
     private PropertyAvailabilityValidator propertyAvailabilityValidator;
 
+    @Mock
+    private PropertyAvailabilityIndex propertyAvailabilityIndex;
+
     @BeforeEach
     void setUp() {
-        blockService = new BlockService(blockRepository, mapper, propertyAvailabilityValidator);
+        blockService = new BlockService(blockRepository, propertyRepository, mapper, propertyAvailabilityValidator, propertyAvailabilityIndex, new PropertyLockManager(16),
+                new OptimisticLockRetry(new SimpleMeterRegistry(), 3, 0, 0),
+                new IdempotencyStore(new BeanConfig().objectMapper(), new SimpleMeterRegistry(), 100, 300));
     }
 
     @Test
@@ -66,11 +80,12 @@ class BlockServiceTest {
         block.setStartDate(startDateParsed);
         block.setEndDate(endDateParsed);
         block.setProperty(property);
-        when(mapper.map(block, BlockDTO.class)).thenReturn(blockDTO);
+        when(propertyRepository.findById(property.getId())).thenReturn(Optional.of(property));
+        when(mapper.toBlockDTO(block)).thenReturn(blockDTO);
 
         var response = blockService.createBlock(block);
         verify(blockRepository, times(1)).save(block);
-        verify(mapper, times(1)).map(block, BlockDTO.class);
+        verify(mapper, times(1)).toBlockDTO(block);
 
         assertEquals(blockId,response.getId());
         assertEquals(startDate,response.getStartDate());
@@ -95,6 +110,7 @@ class BlockServiceTest {
         block.setStartDate(startDateParsed);
         block.setEndDate(endDateParsed);
         block.setProperty(property);
+        when(propertyRepository.findById(property.getId())).thenReturn(Optional.of(property));
 
         // Mock behavior of blockRepository.save(block) to throw OverlapedBookingException
         doThrow(new OverlapedBookingException("This property is already blocked for booking on the dates selected.")).when(blockRepository).save(block);
@@ -103,6 +119,48 @@ class BlockServiceTest {
         assertThrows(OverlapedBookingException.class, () -> blockService.createBlock(block));
     }
 
+    @Test
+    @DisplayName("Attempt to create a block without a property")
+    void given_BlockWithoutProperty_then_throwIllegalArgumentException() {
+        Block block = new Block();
+        block.setStartDate(LocalDate.parse("2024-02-01"));
+        block.setEndDate(LocalDate.parse("2024-02-05"));
+
+        assertThrows(IllegalArgumentException.class, () -> blockService.createBlock(block));
+
+        verifyNoInteractions(propertyRepository, propertyAvailabilityValidator);
+        verify(blockRepository, never()).save(any(Block.class));
+    }
+
+    @Test
+    @DisplayName("Replaying a block by Idempotency-Key when the retry sends the same dates and property")
+    void given_RepeatedIdempotencyKey_then_replayCreateBlockResponse() {
+        // Prepare data
+        Property property = new Property();
+        property.setId(UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc"));
+        Block block = new Block();
+        block.setStartDate(LocalDate.parse("2024-02-01"));
+        block.setEndDate(LocalDate.parse("2024-02-05"));
+        block.setProperty(property);
+        BlockDTO blockDTO = BlockDTO.builder().startDate("2024-02-01").endDate("2024-02-05").build();
+        when(propertyRepository.findById(property.getId())).thenReturn(Optional.of(property));
+        when(mapper.toBlockDTO(block)).thenReturn(blockDTO);
+        BlockDTO created = blockService.createBlock(block, "key-1");
+
+        // The retry's property carries more than its id, only the id is part of the request
+        Property sameProperty = new Property();
+        sameProperty.setId(property.getId());
+        sameProperty.setOwnerName("John Kennery");
+        sameProperty.setVersion(3L);
+        Block retry = new Block();
+        retry.setStartDate(LocalDate.parse("2024-02-01"));
+        retry.setEndDate(LocalDate.parse("2024-02-05"));
+        retry.setProperty(sameProperty);
+
+        assertSame(created, blockService.createBlock(retry, "key-1"));
+        verify(blockRepository, times(1)).save(any(Block.class));
+    }
+
     @Test
     @DisplayName("Updating a block successfully")
     void given_ValidRequest_then_updateBlock() {
@@ -124,6 +182,7 @@ class BlockServiceTest {
         existingBlock.setId(blockId);
         existingBlock.setStartDate(startDateParsed);
         existingBlock.setEndDate(LocalDate.parse("2024-02-03")); // Assuming an initial end date
+        existingBlock.setProperty(property());
         when(blockRepository.findById(blockId)).thenReturn(Optional.of(existingBlock));
 
         // Call the service method
@@ -141,7 +200,10 @@ class BlockServiceTest {
         UUID blockId = UUID.randomUUID();
 
         // Mock repository method
-        when(blockRepository.findById(blockId)).thenReturn(Optional.of(new Block()));
+        Block existingBlock = new Block();
+        existingBlock.setId(blockId);
+        existingBlock.setProperty(property());
+        when(blockRepository.findById(blockId)).thenReturn(Optional.of(existingBlock));
 
         // Perform the delete
         blockService.deleteBlock(blockId);
@@ -150,5 +212,24 @@ class BlockServiceTest {
         verify(blockRepository, times(1)).delete(any(Block.class));
     }
 
+    @Test
+    @DisplayName("Attempt to delete a block without a property")
+    void given_BlockWithoutProperty_then_throwIllegalArgumentException_on_deleteBlock() {
+        // Prepare data
+        UUID blockId = UUID.randomUUID();
+        when(blockRepository.findById(blockId)).thenReturn(Optional.of(new Block()));
+
+        assertThrows(IllegalArgumentException.class, () -> blockService.deleteBlock(blockId));
+
+        verify(blockRepository, never()).delete(any(Block.class));
+        verifyNoInteractions(propertyAvailabilityIndex);
+    }
+
+    private static Property property() {
+        Property property = new Property();
+        property.setId(UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc"));
+        return property;
+    }
+
 }
 
@@ -0,0 +1,174 @@
+package com.example.bookingtechtest.service;
+
+import com.example.bookingtechtest.config.BeanConfig;
+import com.example.bookingtechtest.entity.Booking;
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.enums.BookingStatus;
+import com.example.bookingtechtest.mapper.BookingMapperImpl;
+import com.example.bookingtechtest.mapper.DateMapperImpl;
+import com.example.bookingtechtest.mapper.PropertyMapperImpl;
+import com.example.bookingtechtest.response.SerializedBooking;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingResponseCacheTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BookingResponseCache bookingResponseCache = new BookingResponseCache(
+            new BookingMapperImpl(new PropertyMapperImpl(), new DateMapperImpl()), new BeanConfig().objectMapper(), meterRegistry, 100, 300);
+
+    @Test
+    @DisplayName("Serving a booking from the cache until it is invalidated")
+    void given_CachedBooking_then_skipLoaderUntilInvalidated() {
+        // Prepare data
+        UUID bookingId = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+        Function<UUID, Booking> loader = id -> booking(id, loads.incrementAndGet());
+
+        SerializedBooking first = bookingResponseCache.get(bookingId, loader);
+        SerializedBooking second = bookingResponseCache.get(bookingId, loader);
+
+        // The second read is a hit and returns the very same bytes
+        assertEquals(1, loads.get());
+        assertArrayEquals(first.getJson(), second.getJson());
+        assertEquals("\"1-0\"", first.getETag());
+
+        // Outside of a transaction the invalidation is immediate
+        bookingResponseCache.invalidate(bookingId);
+        SerializedBooking reloaded = bookingResponseCache.get(bookingId, loader);
+        assertEquals(2, loads.get());
+        assertEquals("\"2-0\"", reloaded.getETag());
+        assertTrue(new String(reloaded.getJson()).contains("\"status\":\"Booked\""));
+
+        assertEquals(2.0, meterRegistry.get("cache.gets").tags("cache", "bookings", "result", "miss").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "bookings", "result", "hit").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Dropping only the bookings of a property when it changes")
+    void given_PropertyChange_then_invalidateItsBookings() {
+        // Prepare data
+        UUID propertyId = UUID.randomUUID();
+        UUID bookingId = UUID.randomUUID();
+        UUID otherBookingId = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+        bookingResponseCache.get(bookingId, id -> booking(id, loads.incrementAndGet(), propertyId));
+        bookingResponseCache.get(otherBookingId, id -> booking(id, loads.incrementAndGet(), UUID.randomUUID()));
+
+        bookingResponseCache.invalidateProperty(propertyId);
+
+        // Only the booking of the changed property is loaded again
+        bookingResponseCache.get(bookingId, id -> booking(id, loads.incrementAndGet(), propertyId));
+        bookingResponseCache.get(otherBookingId, id -> booking(id, loads.incrementAndGet(), UUID.randomUUID()));
+        assertEquals(3, loads.get());
+
+        // The reloaded booking is tracked again
+        bookingResponseCache.invalidateProperty(propertyId);
+        bookingResponseCache.get(bookingId, id -> booking(id, loads.incrementAndGet(), propertyId));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    @DisplayName("Not keeping a booking whose property changed while it was loading")
+    void given_PropertyChangeDuringLoad_then_notCache() {
+        // Prepare data
+        UUID propertyId = UUID.randomUUID();
+        UUID bookingId = UUID.randomUUID();
+
+        // The property changes after the loader read it, before the entry is tracked under it
+        bookingResponseCache.get(bookingId, id -> {
+            bookingResponseCache.invalidateProperty(propertyId);
+            return booking(id, 1, propertyId);
+        });
+
+        assertEquals("\"2-0\"", bookingResponseCache.get(bookingId, id -> booking(id, 2, propertyId)).getETag());
+    }
+
+    @Test
+    @DisplayName("Serving a booking without a property")
+    void given_BookingWithoutProperty_then_useFixedPropertyVersion() {
+        // Prepare data
+        UUID bookingId = UUID.randomUUID();
+        Booking booking = booking(bookingId, 3, UUID.randomUUID());
+        booking.setProperty(null);
+
+        SerializedBooking response = bookingResponseCache.get(bookingId, id -> booking);
+
+        assertEquals("\"3-0\"", response.getETag());
+        assertTrue(new String(response.getJson()).contains("\"property\":null"));
+    }
+
+    @Test
+    @DisplayName("Not caching a booking that could not be loaded")
+    void given_MissingBooking_then_notCache() {
+        // Prepare data
+        UUID bookingId = UUID.randomUUID();
+
+        assertThrows(IllegalArgumentException.class, () -> bookingResponseCache.get(bookingId, id -> {
+            throw new IllegalArgumentException("not found");
+        }));
+
+        // The next read loads again
+        SerializedBooking booking = bookingResponseCache.get(bookingId, id -> booking(id, 0));
+        assertTrue(new String(booking.getJson()).startsWith("{\"id\":\"" + bookingId + "\""));
+    }
+
+    @Test
+    @DisplayName("Invalidating a booking while a reader is still loading it")
+    void given_LoadInProgress_then_invalidateWithoutWaiting() throws Exception {
+        // Prepare data
+        UUID bookingId = UUID.randomUUID();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+
+        // The reader stays in its loader, like one waiting for a database connection
+        CompletableFuture<SerializedBooking> reader = CompletableFuture.supplyAsync(() -> bookingResponseCache.get(bookingId, id -> {
+            loadStarted.countDown();
+            try {
+                releaseLoad.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return booking(id, 1);
+        }));
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+        // A writer invalidates while the load is in progress and does not wait for it
+        CompletableFuture.runAsync(() -> bookingResponseCache.invalidate(bookingId)).get(5, TimeUnit.SECONDS);
+        releaseLoad.countDown();
+        assertEquals("\"1-0\"", reader.get(5, TimeUnit.SECONDS).getETag());
+
+        // The response read before the write is not kept
+        assertEquals("\"2-0\"", bookingResponseCache.get(bookingId, id -> booking(id, 2)).getETag());
+    }
+
+    private static Booking booking(UUID id, long version) {
+        return booking(id, version, UUID.randomUUID());
+    }
+
+    private static Booking booking(UUID id, long version, UUID propertyId) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setStatus(BookingStatus.BOOKING_CREATED);
+        booking.setVersion(version);
+        Property property = new Property();
+        property.setId(propertyId);
+        property.setVersion(0L);
+        booking.setProperty(property);
+        return booking;
+    }
+}
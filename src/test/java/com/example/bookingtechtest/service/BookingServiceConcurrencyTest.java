@@ -0,0 +1,149 @@
+package com.example.bookingtechtest.service;
+
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.exception.OverlapedBookingException;
+import com.example.bookingtechtest.repository.BookingRepository;
+import com.example.bookingtechtest.repository.PropertyRepository;
+import com.example.bookingtechtest.request.CreateBookingRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Slf4j
+@SpringBootTest
+class BookingServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Test
+    @DisplayName("Concurrent requests for the same property and dates create a single booking")
+    void given_ConcurrentRequests_then_createOnlyOneBooking() throws Exception {
+        // Prepare data
+        Property property = newProperty();
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // Every thread tries to book overlapping dates at the same time, a few rounds in a row
+        for (int round = 0; round < 20; round++) {
+            LocalDate startDate = LocalDate.parse("2024-01-01").plusDays(round * 10L);
+            runConcurrently(THREADS, thread -> {
+                try {
+                    bookingService.createBooking(request(property.getId(), startDate.plusDays(thread % 3), startDate.plusDays(3)));
+                    created.incrementAndGet();
+                } catch (OverlapedBookingException e) {
+                    rejected.incrementAndGet();
+                }
+            });
+        }
+
+        // Only one booking per round made it, and the database agrees
+        assertEquals(20, created.get());
+        assertEquals(20 * (THREADS - 1), rejected.get());
+        assertEquals(20, bookingRepository.findOccupiedRangesByPropertyId(property.getId()).size());
+    }
+
+    @Test
+    @DisplayName("Concurrent requests for different properties all succeed in parallel")
+    void given_DifferentProperties_then_createEveryBooking() throws Exception {
+        // Prepare data
+        List<Property> properties = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            properties.add(newProperty());
+        }
+        int bookingsPerProperty = 50;
+
+        // Warm up, then compare one property at a time against all of them at once
+        createBookings(properties.subList(0, 1), bookingsPerProperty, 0);
+        long sequentialNanos = createBookings(properties.subList(0, 1), bookingsPerProperty, 1);
+        long parallelNanos = createBookings(properties, bookingsPerProperty, 2);
+
+        double sequentialThroughput = bookingsPerProperty / (sequentialNanos / 1e9);
+        double parallelThroughput = THREADS * bookingsPerProperty / (parallelNanos / 1e9);
+        log.info("Bookings per second, 1 property: {}, {} properties in parallel: {} ({}x)",
+                Math.round(sequentialThroughput), THREADS, Math.round(parallelThroughput),
+                String.format("%.1f", parallelThroughput / sequentialThroughput));
+
+        for (Property property : properties) {
+            int expected = property == properties.get(0) ? 3 * bookingsPerProperty : bookingsPerProperty;
+            assertEquals(expected, bookingRepository.findOccupiedRangesByPropertyId(property.getId()).size());
+        }
+    }
+
+    private long createBookings(List<Property> properties, int bookingsPerProperty, int year) throws Exception {
+        long start = System.nanoTime();
+        runConcurrently(properties.size(), thread -> {
+            UUID propertyId = properties.get(thread).getId();
+            LocalDate firstDate = LocalDate.of(2030 + year, 1, 1);
+            for (int i = 0; i < bookingsPerProperty; i++) {
+                bookingService.createBooking(request(propertyId, firstDate.plusDays(i * 5L), firstDate.plusDays(i * 5L + 2)));
+            }
+        });
+        return System.nanoTime() - start;
+    }
+
+    private static void runConcurrently(int threads, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Property newProperty() {
+        Property property = new Property();
+        property.setOwnerName("Stress Test");
+        return propertyRepository.save(property);
+    }
+
+    private static CreateBookingRequest request(UUID propertyId, LocalDate startDate, LocalDate endDate) {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setPropertyId(propertyId);
+        request.setStartDate(startDate);
+        request.setEndDate(endDate);
+        request.setGuestName("Neymar Junior");
+        request.setGuestLast4Ssn("01234");
+        return request;
+    }
+
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
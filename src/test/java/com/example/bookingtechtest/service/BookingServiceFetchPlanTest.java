@@ -0,0 +1,148 @@
+package com.example.bookingtechtest.service;
+
+import com.example.bookingtechtest.dto.BookingDTO;
+import com.example.bookingtechtest.entity.Block;
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.repository.PropertyRepository;
+import com.example.bookingtechtest.request.CreateBookingRequest;
+import com.example.bookingtechtest.request.UpdateBookingRequest;
+import com.example.bookingtechtest.response.CreateBookingResponse;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Counts the statements, entity loads and second-level cache hits of each path with the Hibernate statistics
+@SpringBootTest
+class BookingServiceFetchPlanTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BlockService blockService;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Property property;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        property = new Property();
+        property.setOwnerName("Fetch Plan Test");
+        property = propertyRepository.save(property);
+    }
+
+    @Test
+    @DisplayName("Reading a booking with its property in a single query")
+    void given_Booking_then_readItWithItsPropertyInOneQuery() {
+        // Prepare data
+        UUID bookingId = bookingService.createBooking(request("2044-01-01", "2044-01-05")).getId();
+
+        statistics.clear();
+        BookingDTO booking = bookingService.getBookingById(bookingId);
+
+        assertEquals("Fetch Plan Test", booking.getProperty().getOwnerName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, propertyLoads());
+    }
+
+    @Test
+    @DisplayName("Updating a booking reads its property once, for the response")
+    void given_BookingUpdate_then_readThePropertyOnce() {
+        // Prepare data
+        UUID bookingId = bookingService.createBooking(request("2044-02-01", "2044-02-05")).getId();
+        UpdateBookingRequest update = new UpdateBookingRequest();
+        update.setStartDate(LocalDate.parse("2044-03-01"));
+        update.setEndDate(LocalDate.parse("2044-03-05"));
+        update.setGuestName("Vinicius Junior");
+        update.setGuestLast4Ssn("56789");
+
+        statistics.clear();
+        BookingDTO booking = bookingService.updateBooking(bookingId, update, null).getBooking();
+
+        assertEquals("Fetch Plan Test", booking.getProperty().getOwnerName());
+        assertEquals(1, propertyLoads());
+    }
+
+    @Test
+    @DisplayName("Creating bookings with the property from the second-level cache")
+    void given_CachedProperty_then_createBookingsWithoutLoadingIt() {
+        statistics.clear();
+        bookingService.createBooking(request("2044-07-01", "2044-07-05"));
+        CreateBookingResponse booking = bookingService.createBooking(request("2044-07-10", "2044-07-15"));
+
+        assertEquals("Fetch Plan Test", booking.getProperty().getOwnerName());
+        assertEquals(0, propertyLoads());
+        assertEquals(2, statistics.getEntityStatistics(Property.class.getName()).getCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Creating a booking after its property changed, with the cached property updated on commit")
+    void given_PropertyChanged_then_createBookingWithTheNewProperty() {
+        // Prepare data
+        bookingService.createBooking(request("2044-08-01", "2044-08-05"));
+        property.setOwnerName("Renamed Owner");
+        propertyRepository.save(property);
+
+        statistics.clear();
+        CreateBookingResponse booking = bookingService.createBooking(request("2044-08-10", "2044-08-15"));
+
+        assertEquals("Renamed Owner", booking.getProperty().getOwnerName());
+        assertEquals(0, propertyLoads());
+    }
+
+    @Test
+    @DisplayName("Canceling, rebooking and deleting bookings and blocks without loading their property")
+    void given_WritesThatOnlyNeedThePropertyId_then_neverLoadTheProperty() {
+        // Prepare data
+        UUID bookingId = bookingService.createBooking(request("2044-04-01", "2044-04-05")).getId();
+        Block block = new Block();
+        block.setStartDate(LocalDate.parse("2044-05-01"));
+        block.setEndDate(LocalDate.parse("2044-05-05"));
+        block.setProperty(property);
+        UUID blockId = blockService.createBlock(block).getId();
+        Block updatedBlock = new Block();
+        updatedBlock.setStartDate(LocalDate.parse("2044-06-01"));
+        updatedBlock.setEndDate(LocalDate.parse("2044-06-05"));
+
+        statistics.clear();
+        bookingService.cancelBooking(bookingId);
+        bookingService.rebookCancelledBooking(bookingId);
+        bookingService.deleteBooking(bookingId);
+        blockService.updateBlock(blockId, updatedBlock);
+        blockService.deleteBlock(blockId);
+
+        assertEquals(0, propertyLoads());
+    }
+
+    private long propertyLoads() {
+        return statistics.getEntityStatistics(Property.class.getName()).getLoadCount();
+    }
+
+    private CreateBookingRequest request(String startDate, String endDate) {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setPropertyId(property.getId());
+        request.setStartDate(LocalDate.parse(startDate));
+        request.setEndDate(LocalDate.parse(endDate));
+        request.setGuestName("Neymar Junior");
+        request.setGuestLast4Ssn("01234");
+        return request;
+    }
+}
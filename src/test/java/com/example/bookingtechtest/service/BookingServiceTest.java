@@ -1,37 +1,53 @@
 package com.example.bookingtechtest.service;
 
+import com.example.bookingtechtest.availability.PropertyAvailabilityIndex;
+import com.example.bookingtechtest.availability.PropertyLockManager;
+import com.example.bookingtechtest.config.BeanConfig;
 import com.example.bookingtechtest.entity.Booking;
 import com.example.bookingtechtest.entity.Property;
 import com.example.bookingtechtest.enums.BookingStatus;
 import com.example.bookingtechtest.exception.OverlapedBookingException;
+import com.example.bookingtechtest.exception.PreconditionFailedException;
 import com.example.bookingtechtest.exception.ResourceNotFoundException;
+import com.example.bookingtechtest.mapper.BookingMapper;
 import com.example.bookingtechtest.repository.BookingRepository;
 import com.example.bookingtechtest.repository.PropertyRepository;
+import com.example.bookingtechtest.request.BulkCreateBookingRequest;
 import com.example.bookingtechtest.request.CreateBookingRequest;
 import com.example.bookingtechtest.request.UpdateBookingRequest;
+import com.example.bookingtechtest.response.BulkCreateBookingResponse;
 import com.example.bookingtechtest.response.CreateBookingResponse;
+import com.example.bookingtechtest.response.UpdatedBooking;
 import com.example.bookingtechtest.validator.PropertyAvailabilityValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class BookingServiceTest {
     @Mock
-    private ModelMapper mapper ;
+    private BookingMapper mapper ;
 
     @Mock
     private BookingService bookingService;
@@ -45,9 +61,23 @@ class BookingServiceTest {
     @Mock
     private PropertyAvailabilityValidator propertyAvailabilityValidator;
 
+    @Mock
+    private PropertyAvailabilityIndex propertyAvailabilityIndex;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private BookingResponseCache bookingResponseCache;
+
+    @Captor
+    private ArgumentCaptor<List<Booking>> savedBookingsCaptor;
+
     @BeforeEach
     void setUp() {
-        bookingService = new BookingService(bookingRepository, mapper,propertyRepository, propertyAvailabilityValidator);
+        bookingService = new BookingService(bookingRepository, mapper,propertyRepository, propertyAvailabilityValidator, propertyAvailabilityIndex, new PropertyLockManager(16),
+                new OptimisticLockRetry(new SimpleMeterRegistry(), 3, 0, 0), new TransactionTemplate(transactionManager), bookingResponseCache,
+                new IdempotencyStore(new BeanConfig().objectMapper(), new SimpleMeterRegistry(), 100, 300));
     }
 
     @Test
@@ -71,7 +101,7 @@ class BookingServiceTest {
         booking.setId(bookingId);
         booking.setStartDate(startDateParsed);
         booking.setEndDate(endDateParsed);
-        booking.setStatus("Booked");
+        booking.setStatus(BookingStatus.BOOKING_CREATED);
         booking.setGuestName("Neymar Junior");
         booking.setGuestLast4Ssn("01234");
         booking.setProperty(property);
@@ -99,13 +129,44 @@ class BookingServiceTest {
         // Verify that the captured Booking object matches the expected values
         assertEquals(startDateParsed, capturedBooking.getStartDate());
         assertEquals(endDateParsed, capturedBooking.getEndDate());
-        assertEquals("Booked", capturedBooking.getStatus());
+        assertSame(BookingStatus.BOOKING_CREATED, capturedBooking.getStatus());
         assertEquals("Neymar Junior", capturedBooking.getGuestName());
         assertEquals("01234", capturedBooking.getGuestLast4Ssn());
         assertEquals(property, capturedBooking.getProperty());
     }
 
 
+    @Test
+    @DisplayName("Retrying a booking creation with the same idempotency key")
+    void given_RepeatedIdempotencyKey_then_replayCreateBookingResponse() {
+        // Prepare data
+        UUID propertyId = UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+        Property property = new Property();
+        property.setId(propertyId);
+
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setStartDate(LocalDate.parse("2024-02-01"));
+        request.setEndDate(LocalDate.parse("2024-02-05"));
+        request.setGuestName("Neymar Junior");
+        request.setGuestLast4Ssn("01234");
+        request.setPropertyId(propertyId);
+
+        CreateBookingResponse created = new CreateBookingResponse();
+        when(propertyRepository.findById(propertyId)).thenReturn(Optional.of(property));
+        when(mapper.toCreateBookingResponse(any(Booking.class))).thenReturn(created);
+
+        // The client retries after a timeout
+        CreateBookingResponse first = bookingService.createBooking(request, "3f1c2a8e-retry");
+        CreateBookingResponse retry = bookingService.createBooking(request, "3f1c2a8e-retry");
+
+        // The retry gets the original response, the property and its availability are not checked again
+        assertSame(created, first);
+        assertSame(created, retry);
+        verify(propertyRepository, times(1)).findById(propertyId);
+        verify(propertyAvailabilityValidator, times(1)).validatePropertyAvailability(request.getStartDate(), request.getEndDate(), property);
+        verify(bookingRepository, times(1)).save(any(Booking.class));
+    }
+
     @Test
     @DisplayName("Attempt to create a booking and throwing OverlapedBookingException due date availability")
     void given_InvalidRequest_then_throwOverlapedBookingException() throws Exception {
@@ -176,17 +237,58 @@ class BookingServiceTest {
         existingBookingDTO.setEndDate(endDateParsed); // Assuming an initial end date
         existingBookingDTO.setGuestName("Previous Guest");
         existingBookingDTO.setGuestLast4Ssn("5678");
-        existingBookingDTO.setProperty(new Property()); // Set a dummy property DTO
-        existingBookingDTO.setStatus(BookingStatus.BOOKING_CREATED.getName());
-
-        // Mock the behavior of bookingRepository.findById() to return an existing booking
-        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(existingBookingDTO));
+        Property property = property();
+        property.setVersion(3L);
+        existingBookingDTO.setProperty(property); // Set a dummy property DTO
+        existingBookingDTO.setStatus(BookingStatus.BOOKING_CREATED);
+
+        // Mock the behavior of bookingRepository.findWithPropertyById() to return an existing booking
+        when(bookingRepository.findWithPropertyById(bookingId)).thenReturn(Optional.of(existingBookingDTO));
+        // The saved copy is at the next version
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> {
+            Booking saved = invocation.getArgument(0);
+            saved.setVersion(1L);
+            return saved;
+        });
 
         // Call the service method
-        bookingService.updateBooking(bookingId, updatedBooking);
+        UpdatedBooking result = bookingService.updateBooking(bookingId, updatedBooking, null);
+
+        // The ETag is built from the saved version
+        assertEquals("\"1-3\"", result.getETag());
 
         // Verify that the repository's save method is called with the updated booking entity
         verify(bookingRepository, times(1)).save(any(Booking.class));
+        verify(bookingResponseCache, times(1)).invalidate(bookingId);
+    }
+
+    @Test
+    @DisplayName("Attempt to update a booking that changed since the client read it")
+    void given_StaleVersion_then_throwPreconditionFailedException_on_updateBooking() {
+        // Define test data
+        UUID bookingId = UUID.fromString("3b3e5980-b136-42b2-ab00-024948232e96");
+        UpdateBookingRequest updateRequest = new UpdateBookingRequest();
+        updateRequest.setStartDate(LocalDate.parse("2024-02-01"));
+        updateRequest.setEndDate(LocalDate.parse("2024-02-05"));
+
+        // The client read version 3, the booking is now at version 4
+        Booking existingBooking = new Booking();
+        existingBooking.setId(bookingId);
+        existingBooking.setStatus(BookingStatus.BOOKING_CREATED);
+        existingBooking.setVersion(4L);
+        existingBooking.setProperty(property());
+        when(bookingRepository.findWithPropertyById(bookingId)).thenReturn(Optional.of(existingBooking));
+
+        assertThrows(PreconditionFailedException.class, () -> bookingService.updateBooking(bookingId, updateRequest, List.of(3L)));
+
+        // Nothing is validated nor saved
+        verifyNoInteractions(propertyAvailabilityValidator);
+        verify(bookingRepository, never()).save(any(Booking.class));
+
+        // The current version goes through
+        when(bookingRepository.save(existingBooking)).thenReturn(existingBooking);
+        bookingService.updateBooking(bookingId, updateRequest, List.of(3L, 4L));
+        verify(bookingRepository, times(1)).save(existingBooking);
     }
 
     @Test
@@ -198,18 +300,50 @@ class BookingServiceTest {
 
         // Mock the behavior of getBooking() to return a canceled booking
         Booking canceledBooking = new Booking();
-        canceledBooking.setStatus(BookingStatus.BOOKING_CANCELED.getName());
-        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(canceledBooking));
+        canceledBooking.setStatus(BookingStatus.BOOKING_CANCELED);
+        when(bookingRepository.findWithPropertyById(bookingId)).thenReturn(Optional.of(canceledBooking));
 
         // Call the updateBooking() method and expect an IllegalArgumentException to be thrown
         assertThrows(IllegalArgumentException.class, () -> {
-            bookingService.updateBooking(bookingId, updateRequest);
+            bookingService.updateBooking(bookingId, updateRequest, null);
         });
 
         // Ensure that bookingRepository.save() is not called
         verify(bookingRepository, never()).save(any(Booking.class));
     }
 
+    @Test
+    @DisplayName("Attempt to update a booking to dates that are taken")
+    void given_UnavailableDates_then_throwOverlapedBookingException_on_updateBooking() {
+        // Define test data
+        UUID bookingId = UUID.fromString("3b3e5980-b136-42b2-ab00-024948232e96");
+        UpdateBookingRequest updateRequest = new UpdateBookingRequest();
+        updateRequest.setStartDate(LocalDate.parse("2024-02-01"));
+        updateRequest.setEndDate(LocalDate.parse("2024-02-05"));
+        updateRequest.setGuestName("John Doe");
+        Property property = property();
+        Booking existingBooking = new Booking();
+        existingBooking.setId(bookingId);
+        existingBooking.setStartDate(LocalDate.parse("2024-01-01"));
+        existingBooking.setEndDate(LocalDate.parse("2024-01-05"));
+        existingBooking.setGuestName("Previous Guest");
+        existingBooking.setStatus(BookingStatus.BOOKING_CREATED);
+        existingBooking.setProperty(property);
+        when(bookingRepository.findWithPropertyById(bookingId)).thenReturn(Optional.of(existingBooking));
+        doThrow(new OverlapedBookingException("This property is not available for booking on the dates selected."))
+                .when(propertyAvailabilityValidator)
+                .validatePropertyAvailability(updateRequest.getStartDate(), updateRequest.getEndDate(), property, bookingId);
+
+        assertThrows(OverlapedBookingException.class, () -> bookingService.updateBooking(bookingId, updateRequest, null));
+
+        // Nothing changed, nor was saved, indexed or evicted
+        assertEquals(LocalDate.parse("2024-01-01"), existingBooking.getStartDate());
+        assertEquals("Previous Guest", existingBooking.getGuestName());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(propertyAvailabilityIndex, never()).bookingSaved(any());
+        verifyNoInteractions(bookingResponseCache);
+    }
+
     @Test
     @DisplayName("Delete an existing booking")
     void given_ValidRequest_then_deleteBooking2() {
@@ -217,8 +351,7 @@ class BookingServiceTest {
         UUID bookingId = UUID.fromString("3b3e5980-b136-42b2-ab00-024948232e96");
 
         // Mock the behavior of bookingRepository.findById() to return an existing booking
-        Booking existingBooking = new Booking();
-        existingBooking.setId(bookingId);
+        Booking existingBooking = bookingOfProperty(bookingId);
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(existingBooking));
 
         // Call the deleteBooking() method
@@ -226,6 +359,7 @@ class BookingServiceTest {
 
         // Verify that the deleted booking is removed from the repository
         verify(bookingRepository, times(1)).delete(existingBooking);
+        verify(bookingResponseCache, times(1)).invalidate(bookingId);
     }
 
     @Test
@@ -244,6 +378,35 @@ class BookingServiceTest {
         verify(bookingRepository, times(1)).findById(nonExistingBookingId);
     }
 
+    @Test
+    @DisplayName("Attempt to cancel a booking without a property")
+    void given_BookingWithoutProperty_then_throwException_on_cancelBooking() {
+        // Define test data
+        UUID bookingId = UUID.fromString("3b3e5980-b136-42b2-ab00-024948232e96");
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(new Booking()));
+
+        // Call the cancelBooking() method and expect an IllegalArgumentException to be thrown
+        assertThrows(IllegalArgumentException.class, () -> bookingService.cancelBooking(bookingId));
+
+        // Nothing is saved and the booking keeps its status
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verifyNoInteractions(propertyAvailabilityIndex, bookingResponseCache);
+    }
+
+    @Test
+    @DisplayName("Attempt to delete a booking without a property")
+    void given_BookingWithoutProperty_then_throwException_on_deleteBooking() {
+        // Define test data
+        UUID bookingId = UUID.fromString("3b3e5980-b136-42b2-ab00-024948232e96");
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(new Booking()));
+
+        // Call the deleteBooking() method and expect an IllegalArgumentException to be thrown
+        assertThrows(IllegalArgumentException.class, () -> bookingService.deleteBooking(bookingId));
+
+        verify(bookingRepository, never()).delete(any(Booking.class));
+        verifyNoInteractions(propertyAvailabilityIndex, bookingResponseCache);
+    }
+
     @Test
     @DisplayName("Attempt to rebook a non-canceled booking")
     void given_NonCanceledBooking_then_throwException_on_rebookCancelledBooking() {
@@ -252,7 +415,7 @@ class BookingServiceTest {
 
         // Mock the behavior of getBooking() to return a non-canceled booking
         Booking nonCanceledBooking = new Booking();
-        nonCanceledBooking.setStatus(BookingStatus.BOOKING_CREATED.getName());
+        nonCanceledBooking.setStatus(BookingStatus.BOOKING_CREATED);
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(nonCanceledBooking));
 
         // Call the rebookCancelledBooking() method and expect an IllegalArgumentException to be thrown
@@ -271,8 +434,8 @@ class BookingServiceTest {
         UUID bookingId = UUID.fromString("3b3e5980-b136-42b2-ab00-024948232e96");
 
         // Mock the behavior of getBooking() to return a canceled booking
-        Booking canceledBooking = new Booking();
-        canceledBooking.setStatus(BookingStatus.BOOKING_CANCELED.getName());
+        Booking canceledBooking = bookingOfProperty(bookingId);
+        canceledBooking.setStatus(BookingStatus.BOOKING_CANCELED);
 
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(canceledBooking));
 
@@ -281,6 +444,35 @@ class BookingServiceTest {
 
         // Verify that the rebooked booking is saved
         verify(bookingRepository, times(1)).save(any(Booking.class));
+        verify(bookingResponseCache, times(1)).invalidate(bookingId);
+    }
+
+    @Test
+    @DisplayName("Attempt to rebook a canceled booking whose dates were taken in the meantime")
+    void given_CanceledBookingWithTakenDates_then_throwOverlapedBookingException_on_rebookCancelledBooking() {
+        // Define test data
+        UUID bookingId = UUID.fromString("3b3e5980-b136-42b2-ab00-024948232e96");
+        Property property = new Property();
+        property.setId(UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc"));
+
+        Booking canceledBooking = new Booking();
+        canceledBooking.setId(bookingId);
+        canceledBooking.setStartDate(LocalDate.parse("2024-02-01"));
+        canceledBooking.setEndDate(LocalDate.parse("2024-02-05"));
+        canceledBooking.setStatus(BookingStatus.BOOKING_CANCELED);
+        canceledBooking.setProperty(property);
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(canceledBooking));
+
+        // Another booking took the dates after this one was canceled
+        doThrow(new OverlapedBookingException("This property is already booked for the dates selected.")).when(propertyAvailabilityValidator)
+                .validatePropertyAvailability(canceledBooking.getStartDate(), canceledBooking.getEndDate(), property);
+
+        assertThrows(OverlapedBookingException.class, () -> bookingService.rebookCancelledBooking(bookingId));
+
+        // The booking stays canceled
+        assertSame(BookingStatus.BOOKING_CANCELED, canceledBooking.getStatus());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingResponseCache, never()).invalidate(any());
     }
 
     @Test
@@ -290,7 +482,7 @@ class BookingServiceTest {
         UUID bookingId = UUID.randomUUID();
 
         // Mock the behavior of bookingRepository.findById() to return an existing booking
-        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(new Booking()));
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(bookingOfProperty(bookingId)));
 
         // Call the deleteBooking() method
         bookingService.deleteBooking(bookingId);
@@ -299,5 +491,104 @@ class BookingServiceTest {
         verify(bookingRepository, times(1)).delete(any(Booking.class));
     }
 
-}
+    @Test
+    @DisplayName("Retrying a cancel that lost a concurrent modification race")
+    void given_ConcurrentModification_then_retryCancelBooking() {
+        // Define test data
+        UUID bookingId = UUID.fromString("3b3e5980-b136-42b2-ab00-024948232e96");
+
+        // The first save loses against a concurrent update, the second one succeeds. Each attempt reads a fresh booking
+        when(bookingRepository.findById(bookingId)).thenAnswer(invocation -> Optional.of(bookingOfProperty(bookingId)));
+        when(bookingRepository.save(any(Booking.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, bookingId))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Call the cancelBooking() method
+        bookingService.cancelBooking(bookingId);
 
+        // The booking is read again before the second attempt
+        verify(bookingRepository, times(2)).findById(bookingId);
+        verify(bookingRepository, times(2)).save(any(Booking.class));
+        // Only the save that went through invalidates the cached response
+        verify(bookingResponseCache, times(1)).invalidate(bookingId);
+    }
+
+    @Test
+    @DisplayName("Giving up a cancel after too many concurrent modifications")
+    void given_PersistentConcurrentModification_then_throwOptimisticLockingFailureException() {
+        // Define test data
+        UUID bookingId = UUID.fromString("3b3e5980-b136-42b2-ab00-024948232e96");
+
+        // Every save loses against a concurrent update
+        when(bookingRepository.findById(bookingId)).thenAnswer(invocation -> Optional.of(bookingOfProperty(bookingId)));
+        when(bookingRepository.save(any(Booking.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, bookingId));
+
+        // Call the cancelBooking() method and expect the conflict once the attempts are exhausted
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookingService.cancelBooking(bookingId));
+
+        verify(bookingRepository, times(3)).save(any(Booking.class));
+    }
+
+    @Test
+    @DisplayName("Creating bookings in bulk, rejecting conflicts inside the batch and unknown properties")
+    void given_BulkRequest_then_createAvailableBookings() {
+        // Prepare data
+        UUID propertyId = UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+        UUID unknownPropertyId = UUID.fromString("8f29f72e-4f63-11ec-8d3d-0242ac130001");
+        Property property = new Property();
+        property.setId(propertyId);
+
+        BulkCreateBookingRequest request = new BulkCreateBookingRequest();
+        request.setBookings(List.of(
+                bookingRequest(propertyId, "2024-02-01", "2024-02-05"),
+                bookingRequest(propertyId, "2024-02-05", "2024-02-08"),
+                bookingRequest(unknownPropertyId, "2024-02-01", "2024-02-05"),
+                bookingRequest(propertyId, "2024-02-06", "2024-02-08")));
+
+        // Only the first property exists
+        when(propertyRepository.findAllById(any())).thenReturn(List.of(property));
+
+        // Perform request
+        BulkCreateBookingResponse response = bookingService.createBookings(request);
+
+        // The second booking overlaps the first one and the third one has no property
+        assertEquals(2, response.getCreated());
+        assertEquals(2, response.getRejected());
+        assertTrue(response.getResults().get(0).isCreated());
+        assertFalse(response.getResults().get(1).isCreated());
+        assertFalse(response.getResults().get(2).isCreated());
+        assertTrue(response.getResults().get(3).isCreated());
+
+        // The property is loaded once and both bookings are saved together
+        verify(propertyRepository, times(1)).findAllById(any());
+        verify(propertyRepository, never()).findById(any());
+        verify(bookingRepository, times(1)).saveAll(savedBookingsCaptor.capture());
+        assertEquals(2, savedBookingsCaptor.getValue().size());
+        verify(propertyAvailabilityIndex, times(2)).bookingSaved(any(Booking.class));
+    }
+
+    private static CreateBookingRequest bookingRequest(UUID propertyId, String startDate, String endDate) {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setPropertyId(propertyId);
+        request.setStartDate(LocalDate.parse(startDate));
+        request.setEndDate(LocalDate.parse(endDate));
+        request.setGuestName("Neymar Junior");
+        request.setGuestLast4Ssn("01234");
+        return request;
+    }
+
+    private static Booking bookingOfProperty(UUID bookingId) {
+        Booking booking = new Booking();
+        booking.setId(bookingId);
+        booking.setProperty(property());
+        return booking;
+    }
+
+    private static Property property() {
+        Property property = new Property();
+        property.setId(UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc"));
+        return property;
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.example.bookingtechtest.service;
+
+import com.example.bookingtechtest.entity.Block;
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.exception.OverlapedBookingException;
+import com.example.bookingtechtest.repository.BlockRepository;
+import com.example.bookingtechtest.repository.BookingRepository;
+import com.example.bookingtechtest.repository.PropertyRepository;
+import com.example.bookingtechtest.request.CreateBookingRequest;
+import com.example.bookingtechtest.request.UpdateBookingRequest;
+import com.example.bookingtechtest.response.SerializedBooking;
+import com.example.bookingtechtest.response.UpdatedBooking;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Updates against the real availability index, where the updated booking or block is already indexed
+@SpringBootTest
+class BookingServiceUpdateTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BlockService blockService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BlockRepository blockRepository;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    private Property property;
+
+    @BeforeEach
+    void setUp() {
+        property = new Property();
+        property.setOwnerName("Update Test");
+        property = propertyRepository.save(property);
+    }
+
+    @Test
+    @DisplayName("Extending a booking over its own dates, but not over another booking")
+    void given_ExtendedBooking_then_updateIt() {
+        // Prepare data
+        UUID bookingId = bookingService.createBooking(request("2045-01-01", "2045-01-05")).getId();
+        bookingService.createBooking(request("2045-01-10", "2045-01-12"));
+
+        UpdatedBooking extended = bookingService.updateBooking(bookingId, update("2045-01-01", "2045-01-08"), null);
+
+        assertEquals("2045-01-08", extended.getBooking().getEndDate());
+        // The update returns the ETag a read now gets
+        assertEquals("\"1-0\"", extended.getETag());
+        assertEquals(extended.getETag(), bookingService.getSerializedBookingById(bookingId).getETag());
+        assertThrows(OverlapedBookingException.class,
+                () -> bookingService.updateBooking(bookingId, update("2045-01-02", "2045-01-10"), null));
+        // The rejected update left the booking as it was
+        assertEquals(LocalDate.parse("2045-01-08"), bookingService.getBooking(bookingId).getEndDate());
+        assertEquals(1, bookingService.getBooking(bookingId).getVersion());
+
+        // The exists query of the database source leaves the booking out the same way
+        assertTrue(bookingRepository.existsOverlappingBookingsForProperty(property.getId(),
+                LocalDate.parse("2045-01-01"), LocalDate.parse("2045-01-09"), null));
+        assertFalse(bookingRepository.existsOverlappingBookingsForProperty(property.getId(),
+                LocalDate.parse("2045-01-01"), LocalDate.parse("2045-01-09"), bookingId));
+    }
+
+    @Test
+    @DisplayName("Moving a block by a day over its own dates")
+    void given_MovedBlock_then_updateIt() {
+        // Prepare data
+        Block block = new Block();
+        block.setStartDate(LocalDate.parse("2045-02-01"));
+        block.setEndDate(LocalDate.parse("2045-02-05"));
+        block.setProperty(property);
+        UUID blockId = blockService.createBlock(block).getId();
+        Block moved = new Block();
+        moved.setStartDate(LocalDate.parse("2045-02-02"));
+        moved.setEndDate(LocalDate.parse("2045-02-06"));
+
+        blockService.updateBlock(blockId, moved);
+
+        assertEquals(LocalDate.parse("2045-02-06"), blockService.getBlock(blockId).getEndDate());
+        assertFalse(blockRepository.existsOverlappingBlocksForProperty(property.getId(),
+                LocalDate.parse("2045-02-01"), LocalDate.parse("2045-02-07"), blockId));
+    }
+
+    @Test
+    @DisplayName("Reading a booking again, with a new ETag, once its property changed")
+    void given_PropertyChanged_then_readBookingWithNewProperty() {
+        // Prepare data
+        UUID bookingId = bookingService.createBooking(request("2045-03-01", "2045-03-05")).getId();
+        SerializedBooking before = bookingService.getSerializedBookingById(bookingId);
+        property.setOwnerName("Renamed Owner");
+        propertyRepository.save(property);
+
+        SerializedBooking after = bookingService.getSerializedBookingById(bookingId);
+
+        assertTrue(new String(after.getJson()).contains("\"ownerName\":\"Renamed Owner\""));
+        assertEquals("\"0-0\"", before.getETag());
+        assertEquals("\"0-1\"", after.getETag());
+    }
+
+    private CreateBookingRequest request(String startDate, String endDate) {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setPropertyId(property.getId());
+        request.setStartDate(LocalDate.parse(startDate));
+        request.setEndDate(LocalDate.parse(endDate));
+        request.setGuestName("Neymar Junior");
+        request.setGuestLast4Ssn("01234");
+        return request;
+    }
+
+    private UpdateBookingRequest update(String startDate, String endDate) {
+        UpdateBookingRequest update = new UpdateBookingRequest();
+        update.setStartDate(LocalDate.parse(startDate));
+        update.setEndDate(LocalDate.parse(endDate));
+        update.setGuestName("Vinicius Junior");
+        update.setGuestLast4Ssn("56789");
+        return update;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.bookingtechtest.service;
+
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.enums.ExportFormat;
+import com.example.bookingtechtest.repository.PropertyRepository;
+import com.example.bookingtechtest.request.CreateBookingRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ExportServiceTest {
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("Exporting bookings as NDJSON and as CSV")
+    void given_Bookings_then_exportEveryRow() throws Exception {
+        // Prepare data, with a guest name CSV has to quote
+        Property property = new Property();
+        property.setOwnerName("Export Test");
+        property = propertyRepository.save(property);
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setPropertyId(property.getId());
+        request.setStartDate(LocalDate.parse("2042-01-01"));
+        request.setEndDate(LocalDate.parse("2042-01-05"));
+        request.setGuestName("Junior, \"Neymar\"");
+        request.setGuestLast4Ssn("01234");
+        UUID bookingId = bookingService.createBooking(request).getId();
+
+        // NDJSON: one object per line
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        long rows = exportService.exportBookings(ExportFormat.NDJSON, ndjson);
+        List<String> lines = ndjson.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(rows, lines.size());
+        JsonNode booking = lines.stream()
+                .map(this::readTree)
+                .filter(line -> line.get("id").asText().equals(bookingId.toString()))
+                .findFirst().orElseThrow();
+        assertEquals(property.getId().toString(), booking.get("propertyId").asText());
+        assertEquals("2042-01-05", booking.get("endDate").asText());
+        assertEquals("Booked", booking.get("status").asText());
+        assertEquals("Junior, \"Neymar\"", booking.get("guestName").asText());
+        assertEquals(0, booking.get("version").asLong());
+
+        // CSV: a header line, then the same rows
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        assertEquals(rows, exportService.exportBookings(ExportFormat.CSV, csv));
+        List<String> csvLines = List.of(csv.toString(StandardCharsets.UTF_8).split("\r\n"));
+        assertEquals(String.join(",", ExportService.BOOKING_COLUMNS), csvLines.get(0));
+        assertEquals(rows + 1, csvLines.size());
+        assertTrue(csvLines.contains(bookingId + "," + property.getId() + ",2042-01-01,2042-01-05,Booked,\"Junior, \"\"Neymar\"\"\",01234,"
+                + booking.get("created_at").asText() + ",,0"));
+    }
+
+    private JsonNode readTree(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.bookingtechtest.service;
+
+import com.example.bookingtechtest.availability.PropertyAvailabilityIndex;
+import com.example.bookingtechtest.availability.PropertyLockManager;
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.exception.HoldLimitExceededException;
+import com.example.bookingtechtest.exception.OverlapedBookingException;
+import com.example.bookingtechtest.exception.ResourceNotFoundException;
+import com.example.bookingtechtest.repository.BlockRepository;
+import com.example.bookingtechtest.repository.BookingRepository;
+import com.example.bookingtechtest.repository.PropertyRepository;
+import com.example.bookingtechtest.request.CreateBookingRequest;
+import com.example.bookingtechtest.response.CreateBookingResponse;
+import com.example.bookingtechtest.response.HoldResponse;
+import com.example.bookingtechtest.validator.PropertyAvailabilityValidator;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HoldServiceTest {
+
+    @Mock
+    private PropertyRepository propertyRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private BlockRepository blockRepository;
+
+    @Mock
+    private BookingService bookingService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PropertyAvailabilityIndex propertyAvailabilityIndex;
+
+    private final FakeTime time = new FakeTime();
+
+    private final UUID propertyId = UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+
+    @BeforeEach
+    void setUp() {
+        propertyAvailabilityIndex = new PropertyAvailabilityIndex(bookingRepository, blockRepository);
+        Property property = new Property();
+        property.setId(propertyId);
+        lenient().when(propertyRepository.findById(propertyId)).thenReturn(Optional.of(property));
+    }
+
+    @Test
+    @DisplayName("Holding dates keeps other bookings out until the hold is released")
+    void given_Hold_then_datesUnavailableUntilReleased() {
+        HoldService holdService = holdService(600);
+
+        HoldResponse hold = holdService.createHold(request("2024-02-01", "2024-02-05"));
+
+        // The held dates are taken for everyone else, the days around them are not
+        assertThrows(OverlapedBookingException.class, () -> holdService.createHold(request("2024-02-05", "2024-02-07")));
+        assertEquals("2024-02-06", holdService.createHold(request("2024-02-06", "2024-02-07")).getStartDate());
+
+        // Released, the dates are available again
+        holdService.releaseHold(hold.getId());
+        assertFalse(propertyAvailabilityIndex.hasOverlappingHold(propertyId, LocalDate.parse("2024-02-01"), LocalDate.parse("2024-02-05")));
+        assertThrows(ResourceNotFoundException.class, () -> holdService.getHold(hold.getId()));
+        verifyNoInteractions(bookingService);
+    }
+
+    @Test
+    @DisplayName("Rejecting new holds, instead of evicting live ones, once the limit is reached")
+    void given_HoldLimitReached_then_rejectNewHolds() {
+        HoldService holdService = holdService(600, 2);
+        HoldResponse first = holdService.createHold(request("2024-02-01", "2024-02-05"));
+        HoldResponse second = holdService.createHold(request("2024-03-01", "2024-03-05"));
+
+        assertThrows(HoldLimitExceededException.class, () -> holdService.createHold(request("2024-04-01", "2024-04-05")));
+
+        // Both granted holds are still live, and a released one frees its slot
+        assertEquals(first, holdService.getHold(first.getId()));
+        assertEquals(second, holdService.getHold(second.getId()));
+        assertFalse(propertyAvailabilityIndex.hasOverlappingHold(propertyId, LocalDate.parse("2024-04-01"), LocalDate.parse("2024-04-05")));
+        holdService.releaseHold(first.getId());
+        assertEquals("2024-04-01", holdService.createHold(request("2024-04-01", "2024-04-05")).getStartDate());
+        assertEquals(1.0, meterRegistry.get("booking.holds").tag("outcome", "rejected").counter().count());
+    }
+
+    @Test
+    @DisplayName("Confirming a hold creates its booking")
+    void given_Hold_then_confirmIntoBooking() {
+        HoldService holdService = holdService(600);
+        HoldResponse hold = holdService.createHold(request("2024-02-01", "2024-02-05"));
+        CreateBookingResponse created = new CreateBookingResponse();
+        when(bookingService.createBooking(any(CreateBookingRequest.class))).thenReturn(created);
+
+        assertSame(created, holdService.confirmHold(hold.getId()));
+
+        // The booking gets the hold's details, the hold itself is gone
+        ArgumentCaptor<CreateBookingRequest> requestCaptor = ArgumentCaptor.forClass(CreateBookingRequest.class);
+        verify(bookingService).createBooking(requestCaptor.capture());
+        assertEquals(request("2024-02-01", "2024-02-05"), requestCaptor.getValue());
+        assertFalse(propertyAvailabilityIndex.hasOverlappingHold(propertyId, LocalDate.parse("2024-02-01"), LocalDate.parse("2024-02-05")));
+        assertThrows(ResourceNotFoundException.class, () -> holdService.confirmHold(hold.getId()));
+    }
+
+    @Test
+    @DisplayName("Keeping the dates held when the booking of a hold fails")
+    void given_FailedConfirmation_then_keepHold() {
+        HoldService holdService = holdService(600);
+        HoldResponse hold = holdService.createHold(request("2024-02-01", "2024-02-05"));
+        when(bookingService.createBooking(any(CreateBookingRequest.class)))
+                .thenThrow(new OverlapedBookingException("This property is not available for booking on the dates selected."));
+
+        assertThrows(OverlapedBookingException.class, () -> holdService.confirmHold(hold.getId()));
+
+        // The guest can still retry within the original expiry
+        assertEquals(hold, holdService.getHold(hold.getId()));
+        assertTrue(propertyAvailabilityIndex.hasOverlappingHold(propertyId, LocalDate.parse("2024-02-01"), LocalDate.parse("2024-02-05")));
+    }
+
+    @Test
+    @DisplayName("Releasing the dates of a hold that expires while its booking fails")
+    void given_FailedConfirmationOfExpiredHold_then_releaseDates() {
+        HoldService holdService = holdService(1);
+        HoldResponse hold = holdService.createHold(request("2024-02-01", "2024-02-05"));
+        // The booking takes longer than what is left of the hold
+        when(bookingService.createBooking(any(CreateBookingRequest.class))).thenAnswer(invocation -> {
+            time.advance(Duration.ofSeconds(2));
+            throw new OverlapedBookingException("This property is not available for booking on the dates selected.");
+        });
+
+        assertThrows(OverlapedBookingException.class, () -> holdService.confirmHold(hold.getId()));
+
+        // Not restored, so nothing is left in the index to hold the dates
+        assertThrows(ResourceNotFoundException.class, () -> holdService.getHold(hold.getId()));
+        assertFalse(propertyAvailabilityIndex.hasOverlappingHold(propertyId, LocalDate.parse("2024-02-01"), LocalDate.parse("2024-02-05")));
+        assertEquals(1.0, meterRegistry.get("booking.holds").tag("outcome", "expired").counter().count());
+    }
+
+    @Test
+    @DisplayName("Releasing the dates of a hold once it expires")
+    void given_ExpiredHold_then_releaseDates() {
+        HoldService holdService = holdService(1);
+        HoldResponse hold = holdService.createHold(request("2024-02-01", "2024-02-05"));
+        assertEquals("2024-01-20T10:00:01Z", hold.getExpiresAt());
+        time.advance(Duration.ofMillis(999));
+        holdService.cleanUp();
+        assertTrue(propertyAvailabilityIndex.hasOverlappingHold(propertyId, LocalDate.parse("2024-02-01"), LocalDate.parse("2024-02-05")));
+
+        // Reclaimed like the scheduler does, nothing reads the hold in the meantime. The timer wheel
+        // only gets to it a bucket of about a second after it expired
+        time.advance(Duration.ofSeconds(2));
+        holdService.cleanUp();
+
+        assertFalse(propertyAvailabilityIndex.hasOverlappingHold(propertyId, LocalDate.parse("2024-02-01"), LocalDate.parse("2024-02-05")));
+        assertEquals(1.0, meterRegistry.get("booking.holds").tag("outcome", "expired").counter().count());
+        assertThrows(ResourceNotFoundException.class, () -> holdService.confirmHold(hold.getId()));
+    }
+
+    private HoldService holdService(long ttlSeconds) {
+        return holdService(ttlSeconds, 100);
+    }
+
+    private HoldService holdService(long ttlSeconds, long maxSize) {
+        PropertyAvailabilityValidator validator = new PropertyAvailabilityValidator(propertyAvailabilityIndex,
+                bookingRepository, blockRepository, "index", meterRegistry);
+        return new HoldService(propertyRepository, bookingService, validator, propertyAvailabilityIndex,
+                new PropertyLockManager(16), meterRegistry, ttlSeconds, maxSize, time, time);
+    }
+
+    private CreateBookingRequest request(String startDate, String endDate) {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setPropertyId(propertyId);
+        request.setStartDate(LocalDate.parse(startDate));
+        request.setEndDate(LocalDate.parse(endDate));
+        request.setGuestName("Neymar Junior");
+        request.setGuestLast4Ssn("01234");
+        return request;
+    }
+
+    // A wall clock for expiresAt and a ticker for Caffeine, both at the same fake time
+    private static final class FakeTime extends Clock implements Ticker {
+        private static final Instant START = Instant.parse("2024-01-20T10:00:00Z");
+
+        private final AtomicLong nanos = new AtomicLong();
+
+        void advance(Duration duration) {
+            nanos.addAndGet(duration.toNanos());
+        }
+
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+
+        @Override
+        public Instant instant() {
+            return START.plusNanos(nanos.get());
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.bookingtechtest.service;
+
+import com.example.bookingtechtest.config.BeanConfig;
+import com.example.bookingtechtest.exception.IdempotencyKeyReusedException;
+import com.example.bookingtechtest.exception.OverlapedBookingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyStoreTest {
+
+    private final IdempotencyStore idempotencyStore = new IdempotencyStore(new BeanConfig().objectMapper(), new SimpleMeterRegistry(), 100, 300);
+
+    @Test
+    @DisplayName("Running duplicates that arrive while the first request is still running only once")
+    void given_ConcurrentDuplicates_then_runOnce() throws Exception {
+        // Prepare data
+        Map<String, String> request = Map.of("propertyId", "e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // The first request is still running when its duplicate arrives
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> idempotencyStore.execute("createBooking", "key-1", request, () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "created";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> duplicate = CompletableFuture.supplyAsync(() -> idempotencyStore.execute("createBooking", "key-1", request, () -> {
+            runs.incrementAndGet();
+            return "created again";
+        }));
+        release.countDown();
+
+        // Both get the response of the single run
+        assertEquals("created", first.get(5, TimeUnit.SECONDS));
+        assertEquals("created", duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    @DisplayName("Running a failed request again when it is retried")
+    void given_FailedRequest_then_runRetryAgain() {
+        // Prepare data
+        List<String> request = List.of("2024-02-01", "2024-02-05");
+
+        assertThrows(OverlapedBookingException.class, () -> idempotencyStore.execute("createBlock", "key-2", request, () -> {
+            throw new OverlapedBookingException("This property is already blocked for booking on the dates selected.");
+        }));
+
+        // The failure was not remembered
+        assertEquals("created", idempotencyStore.execute("createBlock", "key-2", request, () -> "created"));
+    }
+
+    @Test
+    @DisplayName("Running a duplicate again, with an error of its own, when the request it waited for failed")
+    void given_DuplicateOfFailedRequest_then_runItAgain() throws Exception {
+        // Prepare data
+        List<String> request = List.of("2024-02-01", "2024-02-05");
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // The first request is still running when its duplicate arrives, and then fails
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> idempotencyStore.execute("createBlock", "key-5", request, () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new OverlapedBookingException("first");
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> duplicate = CompletableFuture.supplyAsync(() -> idempotencyStore.execute("createBlock", "key-5", request, () -> {
+            runs.incrementAndGet();
+            throw new OverlapedBookingException("duplicate");
+        }));
+        release.countDown();
+
+        // Each gets the exception of its own run, not the shared instance of the first one
+        ExecutionException firstFailure = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        ExecutionException duplicateFailure = assertThrows(ExecutionException.class, () -> duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals("first", firstFailure.getCause().getMessage());
+        assertInstanceOf(OverlapedBookingException.class, duplicateFailure.getCause());
+        assertEquals("duplicate", duplicateFailure.getCause().getMessage());
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    @DisplayName("Rejecting a key reused for a different request, and keeping operations apart")
+    void given_ReusedKey_then_throwIdempotencyKeyReusedException() {
+        // Prepare data
+        Object response = new Object();
+        idempotencyStore.execute("createBooking", "key-3", List.of("2024-02-01"), () -> response);
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> idempotencyStore.execute("createBooking", "key-3", List.of("2024-03-01"), Object::new));
+        assertSame(response, idempotencyStore.execute("createBooking", "key-3", List.of("2024-02-01"), Object::new));
+
+        // The same key on another operation is another request
+        assertEquals("block", idempotencyStore.execute("createBlock", "key-3", List.of("2024-03-01"), () -> "block"));
+
+        // Keys must be usable as identifiers
+        assertThrows(IllegalArgumentException.class, () -> idempotencyStore.execute("createBooking", " ", List.of(), Object::new));
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyStore.execute("createBooking", "k".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1), List.of(), Object::new));
+    }
+
+    @Test
+    @DisplayName("Rejecting a reused key even when the requests have the same 32-bit hash")
+    void given_RequestWithSameHash_then_throwIdempotencyKeyReusedException() {
+        // "Aa" and "BB" serialize to bytes with the same Arrays.hashCode
+        idempotencyStore.execute("createBooking", "key-4", List.of("Aa"), Object::new);
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> idempotencyStore.execute("createBooking", "key-4", List.of("BB"), Object::new));
+    }
+}
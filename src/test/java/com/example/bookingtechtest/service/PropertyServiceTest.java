@@ -0,0 +1,236 @@
+package com.example.bookingtechtest.service;
+
+import com.example.bookingtechtest.availability.AvailabilityCalendar;
+import com.example.bookingtechtest.availability.PropertyAvailabilityIndex;
+import com.example.bookingtechtest.dto.BookingSummaryDTO;
+import com.example.bookingtechtest.dto.CalendarDayDTO;
+import com.example.bookingtechtest.dto.PropertyDTO;
+import com.example.bookingtechtest.enums.BookingStatus;
+import com.example.bookingtechtest.enums.DayStatus;
+import com.example.bookingtechtest.exception.ResourceNotFoundException;
+import com.example.bookingtechtest.repository.BookingRepository;
+import com.example.bookingtechtest.repository.PropertyRepository;
+import com.example.bookingtechtest.response.AvailablePropertiesResponse;
+import com.example.bookingtechtest.response.PropertyBookingsResponse;
+import com.example.bookingtechtest.response.PropertyCalendarResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PropertyServiceTest {
+
+    @Mock
+    private PropertyRepository propertyRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private PropertyAvailabilityIndex propertyAvailabilityIndex;
+
+    private PropertyService propertyService;
+
+    @BeforeEach
+    void setUp() {
+        propertyService = new PropertyService(propertyRepository, bookingRepository, propertyAvailabilityIndex);
+    }
+
+    @Test
+    @DisplayName("Searching available properties among all of them")
+    void given_DateRange_then_findAvailableProperties() {
+        // Prepare data
+        LocalDate startDate = LocalDate.parse("2024-02-01");
+        LocalDate endDate = LocalDate.parse("2024-02-05");
+        PropertyDTO property = new PropertyDTO(UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc"), "Aretha Valente");
+        when(propertyRepository.findAvailableProperties(startDate, endDate, PageRequest.of(0, 1)))
+                .thenReturn(new SliceImpl<>(List.of(property), PageRequest.of(0, 1), true));
+
+        // Perform request
+        AvailablePropertiesResponse response = propertyService.findAvailableProperties(startDate, endDate, null, 0, 1);
+
+        assertEquals(List.of(property), response.getProperties());
+        assertTrue(response.isHasNext());
+        verify(propertyRepository, never()).findAvailablePropertiesIn(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Searching available properties among the given ids")
+    void given_PropertyIds_then_findAvailablePropertiesAmongThem() {
+        // Prepare data
+        LocalDate startDate = LocalDate.parse("2024-02-01");
+        LocalDate endDate = LocalDate.parse("2024-02-05");
+        List<UUID> propertyIds = List.of(UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc"));
+        when(propertyRepository.findAvailablePropertiesIn(propertyIds, startDate, endDate, PageRequest.of(0, 50)))
+                .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 50), false));
+
+        // Perform request
+        AvailablePropertiesResponse response = propertyService.findAvailableProperties(startDate, endDate, propertyIds, 0, 50);
+
+        assertTrue(response.getProperties().isEmpty());
+        assertFalse(response.isHasNext());
+    }
+
+    @Test
+    @DisplayName("Leaving held properties out of the search")
+    void given_HeldProperty_then_excludeItFromAvailableProperties() {
+        // Prepare data
+        LocalDate startDate = LocalDate.parse("2024-02-01");
+        LocalDate endDate = LocalDate.parse("2024-02-05");
+        PropertyDTO held = new PropertyDTO(UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc"), "Aretha Valente");
+        PropertyDTO free = new PropertyDTO(UUID.fromString("5f8c3d2a-1b4e-4c6d-9a7b-8e9f0a1b2c3d"), "Otis Redding");
+        when(propertyRepository.findAvailableProperties(startDate, endDate, PageRequest.of(0, 2)))
+                .thenReturn(new SliceImpl<>(List.of(held, free), PageRequest.of(0, 2), true));
+        when(propertyAvailabilityIndex.hasOverlappingHold(held.getId(), startDate, endDate)).thenReturn(true);
+
+        // Perform request
+        AvailablePropertiesResponse response = propertyService.findAvailableProperties(startDate, endDate, null, 0, 2);
+
+        assertEquals(List.of(free), response.getProperties());
+        assertTrue(response.isHasNext());
+    }
+
+    @Test
+    @DisplayName("Attempt to search with the start date after the end date")
+    void given_InvalidDates_then_throwIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> propertyService.findAvailableProperties(
+                LocalDate.parse("2024-02-05"), LocalDate.parse("2024-02-01"), null, 0, 50));
+
+        verifyNoInteractions(propertyRepository);
+    }
+
+    @Test
+    @DisplayName("Reading the calendar version from memory only")
+    void given_PropertyId_then_getCalendarVersionWithoutDatabase() {
+        // Prepare data
+        UUID propertyId = UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+        when(propertyAvailabilityIndex.calendarVersion(propertyId)).thenReturn("abc-7");
+
+        assertEquals("abc-7", propertyService.getCalendarVersion(propertyId, 12));
+        assertThrows(IllegalArgumentException.class, () -> propertyService.getCalendarVersion(propertyId, 0));
+
+        verifyNoInteractions(propertyRepository);
+        verify(propertyAvailabilityIndex, never()).calendar(any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Getting the calendar of a property")
+    void given_PropertyId_then_getCalendar() {
+        // Prepare data: February 2024 with the 10th booked and the 20th blocked
+        UUID propertyId = UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+        LocalDate startDate = LocalDate.parse("2024-02-01");
+        AvailabilityCalendar calendar = mock(AvailabilityCalendar.class);
+        when(calendar.status(anyInt())).thenReturn(DayStatus.FREE);
+        when(calendar.status(9)).thenReturn(DayStatus.BOOKED);
+        when(calendar.status(19)).thenReturn(DayStatus.BLOCKED);
+        when(calendar.getVersion()).thenReturn("1");
+        when(propertyRepository.existsById(propertyId)).thenReturn(true);
+        when(propertyAvailabilityIndex.calendar(propertyId, startDate, 29)).thenReturn(calendar);
+
+        // Perform request
+        PropertyCalendarResponse response = propertyService.getCalendar(propertyId, startDate, 1);
+
+        assertEquals("2024-02-29", response.getEndDate());
+        assertEquals(29, response.getDays().size());
+        assertEquals(new CalendarDayDTO("2024-02-10", DayStatus.BOOKED), response.getDays().get(9));
+        assertEquals(new CalendarDayDTO("2024-02-20", DayStatus.BLOCKED), response.getDays().get(19));
+        assertEquals(DayStatus.FREE, response.getDays().get(0).getStatus());
+        assertEquals("1", response.getVersion());
+    }
+
+    @Test
+    @DisplayName("Attempt to get the calendar of a property that does not exist")
+    void given_UnknownPropertyId_then_throwResourceNotFoundException() {
+        UUID propertyId = UUID.randomUUID();
+        when(propertyRepository.existsById(propertyId)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> propertyService.getCalendar(propertyId, LocalDate.parse("2024-02-01"), 12));
+
+        verifyNoInteractions(propertyAvailabilityIndex);
+    }
+
+    @Test
+    @DisplayName("Listing the bookings of a property page by page")
+    void given_Cursor_then_findNextPageOfBookings() {
+        // Prepare data: three bookings, two of them starting the same day
+        UUID propertyId = UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+        BookingSummaryDTO first = booking("2024-02-01", "3b3e5980-b136-42b2-ab00-024948232e96");
+        BookingSummaryDTO second = booking("2024-02-01", "5b1b6a8e-1c4d-4e8a-9f1e-1a2b3c4d5e6f");
+        BookingSummaryDTO third = booking("2024-03-01", "0a8d1f3e-2b4c-4d6e-8f0a-1b2c3d4e5f60");
+        when(propertyRepository.existsById(propertyId)).thenReturn(true);
+        when(bookingRepository.findBookingsPage(eq(propertyId), eq(BookingStatus.BOOKING_CREATED), any(), any(),
+                eq(LocalDate.of(1, 1, 1)), eq(new UUID(0, 0)), eq(Limit.of(3))))
+                .thenReturn(List.of(first, second, third));
+        when(bookingRepository.findBookingsPage(eq(propertyId), eq(BookingStatus.BOOKING_CREATED), any(), any(),
+                eq(LocalDate.parse("2024-02-01")), eq(second.getId()), eq(Limit.of(3))))
+                .thenReturn(List.of(third));
+
+        // The first page reads one booking more than it returns, to know there is a next one
+        PropertyBookingsResponse firstPage = propertyService.findBookings(propertyId, BookingStatus.BOOKING_CREATED, null, null, null, 2);
+        assertEquals(List.of(first, second), firstPage.getBookings());
+        assertNotNull(firstPage.getNextCursor());
+
+        // The next page continues right after the last booking of the first one
+        PropertyBookingsResponse secondPage = propertyService.findBookings(propertyId, BookingStatus.BOOKING_CREATED, null, null,
+                firstPage.getNextCursor(), 2);
+        assertEquals(List.of(third), secondPage.getBookings());
+        assertNull(secondPage.getNextCursor());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> propertyService.findBookings(propertyId, null, null, null, "not-a-cursor", 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> propertyService.findBookings(propertyId, null, null, null, null, PropertyService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    @DisplayName("Listing the bookings over a window without reading those that end before it")
+    void given_StartDate_then_seekFromLongestStayBeforeIt() {
+        // Prepare data: no booking of the property lasts more than 10 days
+        UUID propertyId = UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc");
+        LocalDate startDate = LocalDate.parse("2024-06-01");
+        BookingSummaryDTO booking = booking("2024-05-25", "3b3e5980-b136-42b2-ab00-024948232e96");
+        when(propertyRepository.existsById(propertyId)).thenReturn(true);
+        when(propertyAvailabilityIndex.longestStayDays(propertyId)).thenReturn(10L);
+        when(bookingRepository.findBookingsPage(propertyId, null, startDate, LocalDate.of(9999, 12, 31),
+                LocalDate.parse("2024-05-22"), new UUID(0, 0), Limit.of(51)))
+                .thenReturn(List.of(booking));
+
+        // The first page seeks from 10 days before the window
+        PropertyBookingsResponse page = propertyService.findBookings(propertyId, null, startDate, null, null, 50);
+        assertEquals(List.of(booking), page.getBookings());
+
+        // A cursor past that point is kept
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("2024-05-28/" + booking.getId()).getBytes(StandardCharsets.UTF_8));
+        propertyService.findBookings(propertyId, null, startDate, null, cursor, 50);
+        verify(bookingRepository).findBookingsPage(propertyId, null, startDate, LocalDate.of(9999, 12, 31),
+                LocalDate.parse("2024-05-28"), booking.getId(), Limit.of(51));
+    }
+
+    private static BookingSummaryDTO booking(String startDate, String id) {
+        return BookingSummaryDTO.builder()
+                .id(UUID.fromString(id))
+                .startDate(startDate)
+                .endDate(LocalDate.parse(startDate).plusDays(3).toString())
+                .status(BookingStatus.BOOKING_CREATED.getName())
+                .build();
+    }
+}
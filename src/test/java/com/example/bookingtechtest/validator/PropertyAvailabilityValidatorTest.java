@@ -0,0 +1,105 @@
+package com.example.bookingtechtest.validator;
+
+import com.example.bookingtechtest.availability.PropertyAvailabilityIndex;
+import com.example.bookingtechtest.entity.Property;
+import com.example.bookingtechtest.exception.OverlapedBookingException;
+import com.example.bookingtechtest.repository.BlockRepository;
+import com.example.bookingtechtest.repository.BookingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PropertyAvailabilityValidatorTest {
+
+    @Mock
+    private PropertyAvailabilityIndex propertyAvailabilityIndex;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private BlockRepository blockRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PropertyAvailabilityValidator propertyAvailabilityValidator;
+
+    @BeforeEach
+    void setUp() {
+        propertyAvailabilityValidator = new PropertyAvailabilityValidator(propertyAvailabilityIndex, bookingRepository, blockRepository, "index", meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Timing each availability check by its outcome")
+    void given_Checks_then_recordTimerPerOutcome() {
+        // Prepare data: the property is booked from 2024-02-10 until 2024-02-15
+        Property property = new Property();
+        property.setId(UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc"));
+        LocalDate startDate = LocalDate.parse("2024-02-01");
+        LocalDate endDate = LocalDate.parse("2024-02-05");
+        LocalDate bookedDate = LocalDate.parse("2024-02-12");
+        when(propertyAvailabilityIndex.hasOverlappingBooking(property.getId(), startDate, endDate, null)).thenReturn(false);
+        when(propertyAvailabilityIndex.hasOverlappingBlock(property.getId(), startDate, endDate, null)).thenReturn(false);
+        when(propertyAvailabilityIndex.hasOverlappingBooking(property.getId(), bookedDate, bookedDate, null)).thenReturn(true);
+
+        assertTrue(propertyAvailabilityValidator.validatePropertyAvailability(startDate, endDate, property));
+        assertThrows(OverlapedBookingException.class,
+                () -> propertyAvailabilityValidator.validatePropertyAvailability(bookedDate, bookedDate, property));
+        assertThrows(IllegalArgumentException.class,
+                () -> propertyAvailabilityValidator.validatePropertyAvailability(endDate, startDate, property));
+        assertThrows(IllegalArgumentException.class,
+                () -> propertyAvailabilityValidator.validateBlockPropertyAvailability(startDate, endDate, null));
+
+        assertEquals(1, count("booking", "available"));
+        assertEquals(1, count("booking", "overlap"));
+        assertEquals(1, count("booking", "invalid"));
+        assertEquals(1, count("block", "invalid"));
+        assertEquals(0, count("block", "available"));
+    }
+
+    @Test
+    @DisplayName("Checking availability with exists queries when the database is the source")
+    void given_DatabaseSource_then_checkWithExistsQueries() {
+        // Prepare data
+        PropertyAvailabilityValidator databaseValidator = new PropertyAvailabilityValidator(propertyAvailabilityIndex,
+                bookingRepository, blockRepository, "database", meterRegistry);
+        Property property = new Property();
+        property.setId(UUID.fromString("e08c2cf5-7a6b-4788-ad0f-251f5a4a93fc"));
+        LocalDate startDate = LocalDate.parse("2024-02-01");
+        LocalDate endDate = LocalDate.parse("2024-02-05");
+        when(bookingRepository.existsOverlappingBookingsForProperty(property.getId(), startDate, endDate, null)).thenReturn(false);
+        when(blockRepository.existsOverlappingBlocksForProperty(property.getId(), startDate, endDate, null)).thenReturn(true);
+
+        assertThrows(OverlapedBookingException.class,
+                () -> databaseValidator.validatePropertyAvailability(startDate, endDate, property));
+
+        // Holds are only in memory, the index is still asked about them
+        LocalDate heldDate = LocalDate.parse("2024-03-01");
+        when(bookingRepository.existsOverlappingBookingsForProperty(property.getId(), heldDate, heldDate, null)).thenReturn(false);
+        when(blockRepository.existsOverlappingBlocksForProperty(property.getId(), heldDate, heldDate, null)).thenReturn(false);
+        when(propertyAvailabilityIndex.hasOverlappingHold(property.getId(), heldDate, heldDate)).thenReturn(true);
+        assertThrows(OverlapedBookingException.class,
+                () -> databaseValidator.validatePropertyAvailability(heldDate, heldDate, property));
+
+        verify(propertyAvailabilityIndex, never()).hasOverlappingBooking(any(), any(), any(), any());
+        verify(propertyAvailabilityIndex, never()).hasOverlappingBlock(any(), any(), any(), any());
+    }
+
+    private long count(String check, String outcome) {
+        return meterRegistry.get("booking.availability.checks").tag("check", check).tag("outcome", outcome).timer().count();
+    }
+}